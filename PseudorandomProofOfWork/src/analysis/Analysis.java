@@ -1,55 +1,122 @@
 package analysis;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
-import java.math.MathContext;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
 import java.util.LinkedList;
-import java.util.Random;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
+import generators.BitSource;
 import generators.BlumBlumShub;
+import generators.LockstepBlumBlumShub;
 import math.Functions;
+import math.PeriodCalculator;
+import metrics.AnalysisRoundEvent;
+import metrics.Metrics;
+import pow.Challenge;
+import pow.Issuer;
+import pow.ParallelSolver;
+import pow.Solution;
 
 public class Analysis {
 	private Print out;
+	private int parallelism;
+	private WeakSeedStore weakSeedStore;
+	private Path checkpointFile;
+	private ResultSink results = ResultSink.NONE;
 	
 	public Analysis(boolean dump) {
+		this(dump, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * 
+	 * @param dump
+	 * @param parallelism number of worker threads for the seed sweeps
+	 */
+	public Analysis(boolean dump, int parallelism) {
 		out = new Print(System.out, dump);
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * 
+	 * @param weakSeedStore receives the weak seeds of all sweeps, null to keep them only in memory
+	 */
+	public void setWeakSeedStore(WeakSeedStore weakSeedStore) {
+		this.weakSeedStore = weakSeedStore;
+	}
+	
+	/**
+	 * 
+	 * @param checkpointFile where sweeps save their progress and resume from, null to disable checkpoints
+	 */
+	public void setCheckpointFile(Path checkpointFile) {
+		this.checkpointFile = checkpointFile;
 	}
 	
 	/**
 	 * 
+	 * @param results receives the result of every round of the equidistribution checks, {@link ResultSink#NONE} by default
+	 */
+	public void setResultSink(ResultSink results) {
+		this.results = results;
+	}
+	
+	/**
+	 * The seeds of all rounds are drawn up front, then the rounds are evaluated in parallel on a work-stealing pool
+	 * where every worker uses its own generator state over the same modulus. The results are merged by round index,
+	 * so the output does not depend on the parallelism. Every {@value Constants#CHECKPOINT_ROUNDS} rounds the weak seeds
+	 * are committed to the weak seed store and the progress to the checkpoint file, if they are set, and a sweep with the
+	 * same parameters resumes from its checkpoint.
 	 * @param securityParam
 	 * @param difficulty the ratio of the accumulated zeroes sum_zeroes(period) and sum_ones(period) has
 	 * 		  to be greater than sum_zeroes(period)/sum_ones(period) > {@paramref difficulty})
-	 * @return a List of seeds that create an degenereated cycle
+	 * @return a List of seeds that create an degenereated cycle ordered by round, only from the rounds run by this call
 	 */
 	private LinkedList<WeakSeed> checkEquidistributionBlumBlumShub(int securityParam, double difficulty) {
 		LinkedList<WeakSeed> ret = new LinkedList<>();
-		BlumBlumShub generator = new BlumBlumShub(securityParam);
-		BigInteger p = generator.getQ(), q = generator.getQ();
-		int maxPeriodLength;
+		SweepCheckpoint checkpoint = loadCheckpoint(securityParam, difficulty);
+		BigInteger p = checkpoint.getP(), q = checkpoint.getQ(), modulus = p.multiply(q), maxPeriodLength;
+		BigInteger[] seeds = checkpoint.getSeeds();
+		RoundResult[] rounds = new RoundResult[seeds.length];
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
 		double ratio;
 		
 		maxPeriodLength = Functions.maxPeriodLengthBlumBlumShub(p, q);
 		
-		for(int i = 0; i < Constants.EQUIDISTRIBUTION_ROUNDS; i++) {
-			if((ratio = equidistribution(generator, maxPeriodLength)) > difficulty || 1/ratio > difficulty) { // equidistribution differs more than difficulty from 1
-				out.println("Weak seed " + generator.getSeed() + " found with ratio " + ratio + " on difficulty " + difficulty + ".");
+		try {
+			for(int from = checkpoint.getNextRound(), to; from < seeds.length; from = to) {
+				to = Math.min(seeds.length, from + Constants.CHECKPOINT_ROUNDS);
+				pool.invoke(new EquidistributionSweep(securityParam, p, q, seeds, rounds, from, to));
 				
-				ret.add(new WeakSeed(generator.getSeed(), generator.getModulus(), generator.getP(), generator.getQ(), maxPeriodLength, ratio, securityParam));
-			}
-			
-			System.out.println(ratio);
-			
-			if(i % (Constants.EQUIDISTRIBUTION_ROUNDS/100) == 0) {
-				out.println((int)(Math.ceil(i/(double)Constants.EQUIDISTRIBUTION_ROUNDS * 100)) + "% of all " + Constants.EQUIDISTRIBUTION_ROUNDS + " rounds done.");
+				for(int i = from; i < to; i++) {
+					if((ratio = rounds[i].getRatio()) > difficulty || 1/ratio > difficulty) { // equidistribution differs more than difficulty from 1
+						WeakSeed weakSeed = new WeakSeed(seeds[i], modulus, p, q, maxPeriodLength, ratio, securityParam);
+						
+						out.println("Weak seed " + seeds[i] + " found with ratio " + ratio + " on difficulty " + difficulty + ".");
+						ret.add(weakSeed);
+						
+						if(weakSeedStore != null) {
+							weakSeedStore.add(weakSeed);
+						}
+					}
+					
+					results.accept(rounds[i]);
+				}
+				
+				commit(checkpoint, to);
 			}
-			
-			generator.generateSeed();
+		} finally {
+			pool.shutdown();
 		}
 		
 		System.out.println("\n" + ret.size() + " weak seeds found.");
@@ -60,161 +127,510 @@ public class Analysis {
 	/**
 	 * 
 	 * @param securityParam
-	 * @param difficulty the ratio of the accumulated zeroes sum_zeroes(period) and sum_ones(period) has
-	 * 		  to be greater than sum_zeroes(period)/sum_ones(period) > {@paramref difficulty})
+	 * @param difficulty
+	 * @return the checkpoint of an interrupted sweep with these parameters or a new sweep over a new modulus
 	 */
-	private void checkEquidistributionJavaSecureRandom(int securityParam, double difficulty) {
-		LinkedList<WeakSeed> ret = new LinkedList<>();
+	private SweepCheckpoint loadCheckpoint(int securityParam, double difficulty) {
+		SweepCheckpoint ret = null;
+		
+		if(checkpointFile != null) {
+			try {
+				ret = SweepCheckpoint.load(checkpointFile);
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		if(ret != null && ret.matches(securityParam, difficulty)) {
+			out.println("Resuming sweep at round " + ret.getNextRound() + ".");
+			
+			return ret;
+		}
+		
 		BlumBlumShub generator = new BlumBlumShub(securityParam);
-		BigInteger p = generator.getQ(), q = generator.getQ();
-		int maxPeriodLength;
-		double ratio;
+		BigInteger[] seeds = new BigInteger[Constants.EQUIDISTRIBUTION_ROUNDS];
 		
-		maxPeriodLength = Functions.maxPeriodLengthBlumBlumShub(p, q);
+		for(int i = 0; i < seeds.length; i++) {
+			seeds[i] = generator.getSeed();
+			generator.generateSeed();
+		}
 		
-		for(int i = 0; i < Constants.EQUIDISTRIBUTION_ROUNDS; i++) {
-			if((ratio = equidistribution(generator, maxPeriodLength)) > difficulty || 1/ratio > difficulty) { // equidistribution differs more than difficulty from 1
-				out.println("Weak seed " + generator.getSeed() + " found with ratio " + ratio + " on difficulty " + difficulty + ".");
+		return new SweepCheckpoint(securityParam, difficulty, generator.getP(), generator.getQ(), seeds, 0);
+	}
+	
+	/**
+	 * makes the weak seeds of all rounds before nextRound durable, then the progress, the checkpoint of a completed
+	 * sweep is removed
+	 * @param checkpoint
+	 * @param nextRound
+	 */
+	private void commit(SweepCheckpoint checkpoint, int nextRound) {
+		if(weakSeedStore != null) {
+			weakSeedStore.force();
+		}
+		
+		if(checkpointFile == null) {
+			return;
+		}
+		
+		checkpoint.setNextRound(nextRound);
+		
+		try {
+			if(nextRound < checkpoint.getSeeds().length) {
+				checkpoint.save(checkpointFile);
+			}
+			else {
+				Files.deleteIfExists(checkpointFile);
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * evaluates the rounds [from, to) on one generator and splits itself while there are more than threshold rounds,
+	 * progress is counted over all workers in done, the results are passed on in order by the caller
+	 */
+	private class EquidistributionSweep extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private BigInteger p, q;
+		private BigInteger[] seeds;
+		private RoundResult[] rounds;
+		private AtomicInteger done;
+		private int securityParam, from, to, threshold;
+		
+		EquidistributionSweep(int securityParam, BigInteger p, BigInteger q, BigInteger[] seeds, RoundResult[] rounds, int from, int to) {
+			this.securityParam = securityParam;
+			this.p = p;
+			this.q = q;
+			this.seeds = seeds;
+			this.rounds = rounds;
+			done = new AtomicInteger(from); // rounds before from are done by earlier sweeps
+			this.from = from;
+			this.to = to;
+			threshold = Math.max(1, (to - from) / (8 * parallelism)); // some slack for work stealing
+		}
+		
+		private EquidistributionSweep(EquidistributionSweep parent, int from, int to) {
+			securityParam = parent.securityParam;
+			p = parent.p;
+			q = parent.q;
+			seeds = parent.seeds;
+			rounds = parent.rounds;
+			done = parent.done;
+			threshold = parent.threshold;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if(to - from > threshold) {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(new EquidistributionSweep(this, from, middle), new EquidistributionSweep(this, middle, to));
 				
-				ret.add(new WeakSeed(generator.getSeed(), generator.getModulus(), generator.getP(), generator.getQ(), maxPeriodLength, ratio, securityParam));
+				return;
 			}
 			
-			System.out.println(ratio);
+			BigInteger modulus = p.multiply(q);
 			
-			if(i % (Constants.EQUIDISTRIBUTION_ROUNDS/100) == 0) {
-				out.println((int)(Math.ceil(i/(double)Constants.EQUIDISTRIBUTION_ROUNDS * 100)) + "% of all " + Constants.EQUIDISTRIBUTION_ROUNDS + " rounds done.");
+			if(LockstepBlumBlumShub.fits(modulus)) {
+				equidistribution(new LockstepBlumBlumShub(modulus, Math.min(Constants.LOCKSTEP_LANES, to - from)), seeds, rounds, from, to);
+				
+				for(int i = from; i < to; i++) {
+					done();
+				}
+				
+				return;
 			}
 			
-			generator.generateSeed(); // new seed
+			BlumBlumShub generator = new BlumBlumShub(securityParam, p, q);
+			BitSource source = BitSource.of(generator);
+			
+			for(int i = from; i < to; i++) {
+				generator.setSeed(seeds[i]);
+				rounds[i] = equidistribution(source, seeds[i], Long.MAX_VALUE, i);
+				done();
+			}
+		}
+		
+		private void done() {
+			synchronized(done) { // keeps the reported percentages in order
+				progress(done.incrementAndGet(), seeds.length);
+			}
 		}
 	}
 	
 	/**
-	 * calculates the sum of zeroes and ones in an pseudorandom sequence
-	 * @param generator
-	 * @param periodLength
-	 * @return
+	 * prints the progress each time another percent of all rounds is done
+	 * @param done rounds done by all workers
+	 * @param rounds
 	 */
-	private double equidistribution(Random generator, BigInteger periodLength) {
-		BigInteger zeroes = BigInteger.ZERO, ones = BigInteger.ONE;
-		boolean[] period, follow;
-		int index = 0;
-		
-		period = new boolean[periodLength.intValue()];
-		follow = new boolean[periodLength.intValue()];
+	private void progress(int done, int rounds) {
+		if(done % Math.max(1, rounds/100) == 0) {
+			out.println((int)(100L * done / rounds) + "% of all " + rounds + " rounds done.");
+		}
+	}
+	
+	/**
+	 * classifies seeds only by the exact cycle length of their state orbit, computed analytically by {@link PeriodCalculator}
+	 * without stepping through the orbit, so it works on moduli whose cycles are far too long to walk. Moduli too large for
+	 * the factorizations of the calculator are reported at the first seed instead, walking their cycles with 
+	 * {@link PeriodFinder} would not end either.
+	 * @param securityParam
+	 * @return a List of seeds that create an degenereated cycle shorter than carmichael(carmichael(n))/{@value Constants#WEAK_SEED_FACTOR}
+	 */
+	private LinkedList<WeakSeed> checkPeriodsBlumBlumShub(int securityParam) {
+		LinkedList<WeakSeed> ret = new LinkedList<>();
+		BlumBlumShub generator = new BlumBlumShub(securityParam);
+		BigInteger maxPeriodLength = Functions.maxPeriodLengthBlumBlumShub(generator.getP(), generator.getQ()), cycleLength;
+		PeriodCalculator calculator = PeriodCalculator.of(generator.getP(), generator.getQ());
 		
-		for(BigInteger i = BigInteger.ZERO; i.compareTo(periodLength) == -1; i = i.add(BigInteger.ONE)) {
-			if(generator.nextBoolean()) {
-				ones = ones.add(BigInteger.ONE);
-				period[index++] = true;
+		for(int i = 0; i < Constants.EQUIDISTRIBUTION_ROUNDS; i++) {
+			try {
+				cycleLength = calculator.cycleLength(generator.getSeed());
+			} catch(ArithmeticException e) {
+				out.println("Cycle lengths of the " + generator.getModulus().bitLength() + " bit modulus are not computable: " + e.getMessage());
+				
+				return ret;
 			}
-			else {
-				zeroes = zeroes.add(BigInteger.ONE);
-				period[index++] = false;
+			
+			if(cycleLength.multiply(BigInteger.valueOf(Constants.WEAK_SEED_FACTOR)).compareTo(maxPeriodLength) < 0) {
+				out.println("Weak seed " + generator.getSeed() + " found with tail " + calculator.tailLength(generator.getSeed()) + ", cycle " + cycleLength + ".");
+				
+				ret.add(new WeakSeed(generator.getSeed(), generator.getModulus(), generator.getP(), generator.getQ(), cycleLength, Double.NaN, securityParam));
 			}
+			
+			generator.generateSeed();
 		}
 		
-		index = 0;
+		out.println("\n" + ret.size() + " weak seeds found.");
+		
+		return ret;
+	}
+	
+	/**
+	 * issues a proof-of-work challenge over a new modulus and solves it on all workers, which stop at the first solution
+	 * instead of sweeping a fixed number of rounds
+	 * @param securityParam
+	 * @param difficulty
+	 * @return the solution, null if the calling thread was interrupted
+	 */
+	private Solution solveBlumBlumShub(int securityParam, double difficulty) {
+		Issuer issuer = new Issuer(securityParam);
+		Challenge challenge = issuer.issue(difficulty);
+		long start = System.nanoTime();
+		Solution ret;
 		
-		for(BigInteger i = BigInteger.ZERO; i.compareTo(periodLength) == -1; i = i.add(BigInteger.ONE)) {
-			if(generator.nextBoolean()) {
-				follow[index++] = true;
+		try(ParallelSolver solver = new ParallelSolver(parallelism)) {
+			ret = solver.solve(challenge);
+			
+			if(ret == null) {
+				out.println("Interrupted while solving " + challenge + " after " + solver.getAttempts() + " attempts.");
+				
+				return null;
 			}
-			else {
-				follow[index++] = false;
+			
+			out.println("Solved " + challenge + " with " + ret.getNonce() + " after " + solver.getAttempts() + " attempts (expected " 
+					+ Math.round(1/challenge.successProbability()) + ") in " + (System.nanoTime() - start)/1000000 + " ms, verified " + issuer.verify(ret) + ".");
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * maps the exact cycle structure of a small modulus and compares the weak seed fraction found by
+	 * {@link PeriodFinder} on random seeds with the exact one
+	 * @param securityParam at most {@value Constants#CYCLE_MAPPER_MAX_BITS} bits of the modulus
+	 * @return the cycle structure
+	 */
+	private CycleMapper.Structure checkCyclesBlumBlumShub(int securityParam) {
+		BlumBlumShub generator = new BlumBlumShub(securityParam);
+		CycleMapper mapper = new CycleMapper(generator.getP(), generator.getQ(), parallelism);
+		CycleMapper.Structure ret = mapper.map();
+		BigInteger maxPeriodLength = Functions.maxPeriodLengthBlumBlumShub(generator.getP(), generator.getQ());
+		long weakLimit = PeriodFinder.weakLimit(maxPeriodLength);
+		int sampled = 0, mismatches = 0;
+		
+		out.println(ret);
+		
+		for(int i = 0; i < Constants.EQUIDISTRIBUTION_ROUNDS; i++) {
+			boolean weak = PeriodFinder.isWeak(PeriodFinder.find(generator.getSeed(), generator.getModulus(), weakLimit), maxPeriodLength);
+			
+			if(weak) {
+				sampled++;
+			}
+			
+			if(weak != mapper.isWeakSeed(generator.getSeed())) {
+				mismatches++;
 			}
+			
+			generator.generateSeed();
 		}
 		
-		return new BigDecimal(zeroes).divide(new BigDecimal(ones), MathContext.DECIMAL64).doubleValue();
+		out.println("\nSampled weak seed fraction " + (double)sampled/Constants.EQUIDISTRIBUTION_ROUNDS + ", exact " + ret.weakSeedFraction() 
+				+ ", " + mismatches + " mismatches.");
+		
+		return ret;
 	}
 	
 	/**
-	 * calculates the sum of zeroes and ones in an pseudorandom sequence
-	 * @param generator
-	 * @param periodLength
-	 * @return
+	 * Runs the rounds of the equidistribution check on a generator without a seed and a modulus as baseline for the 
+	 * Blum-Blum-Shub sweeps. Such a generator does not repeat its sequence in practice, so every round ends after 
+	 * 2^securityParam bits, the bound of the cycles of a Blum-Blum-Shub generator with a modulus of securityParam bits, 
+	 * but at most after {@value Constants#EQUIDISTRIBUTION_BASELINE_BITS} bits.
+	 * @param name of the generator
+	 * @param source
+	 * @param securityParam
+	 * @param difficulty the ratio of the accumulated zeroes sum_zeroes(period) and sum_ones(period) has
+	 * 		  to be greater than sum_zeroes(period)/sum_ones(period) > {@paramref difficulty})
+	 * @return number of rounds that differ more than difficulty from equidistribution
 	 */
-	private double equidistribution(BlumBlumShub generator, int periodLength) {
-		ArrayList<Boolean> sequence = blumBlumShubPseudorandomSequence(generator, periodLength, Constants.SEQUENCE_WINDOW_LENGTH);
-		int zeroes = 0, ones = 0;
+	private int checkEquidistribution(String name, BitSource source, int securityParam, double difficulty) {
+		long bits = Math.min(Constants.EQUIDISTRIBUTION_BASELINE_BITS, 1L << Math.min(securityParam, Long.SIZE - 2));
+		int ret = 0;
+		double ratio;
 		
-		for(Boolean b : sequence) { // accumulate ones and zeroes
-			if(b) {
-				ones++;
+		for(int i = 0; i < Constants.EQUIDISTRIBUTION_ROUNDS; i++) {
+			RoundResult round = equidistribution(source, null, bits, i);
+			
+			if((ratio = round.getRatio()) > difficulty || 1/ratio > difficulty) { // equidistribution differs more than difficulty from 1
+				out.println("Round " + i + " of " + name + " has ratio " + ratio + " on difficulty " + difficulty + ".");
+				ret++;
 			}
-			else {
-				zeroes++;
+			
+			results.accept(round);
+			progress(i + 1, Constants.EQUIDISTRIBUTION_ROUNDS);
+		}
+		
+		out.println("\n" + ret + " rounds of " + name + " differ more than " + difficulty + " from equidistribution.");
+		
+		return ret;
+	}
+	
+	/**
+	 * runs the {@link StatisticalTestBattery} over one generator with the current seed
+	 * @param securityParam
+	 */
+	private void checkStatisticsBlumBlumShub(int securityParam) {
+		BlumBlumShub generator = new BlumBlumShub(securityParam);
+		
+		out.println("Testing " + Constants.STATISTICAL_TEST_BITS + " bits of seed " + generator.getSeed() + " over modulus " + generator.getModulus() + ".");
+		checkStatistics(BitSource.of(generator));
+	}
+	
+	/**
+	 * runs the {@link StatisticalTestBattery} over the next bits of source and prints the results with the throughput
+	 * @param source
+	 */
+	private void checkStatistics(BitSource source) {
+		long start = System.nanoTime();
+		List<StatisticalTestBattery.Result> results = statisticalTests(source, Constants.STATISTICAL_TEST_BITS);
+		long nanos = System.nanoTime() - start;
+		int failed = 0;
+		
+		for(StatisticalTestBattery.Result result : results) {
+			if(!result.passed(Constants.SIGNIFICANCE_LEVEL)) {
+				failed++;
 			}
+			
+			out.println(result);
+		}
+		
+		out.println("\n" + failed + " tests failed on significance level " + Constants.SIGNIFICANCE_LEVEL + ", " 
+				+ Constants.STATISTICAL_TEST_BITS + " bits generated and tested in " + nanos/1000000 + " ms.");
+	}
+	
+	/**
+	 * feeds the next bits of source into a {@link StatisticalTestBattery} in one pass
+	 * @param source
+	 * @param bits
+	 * @return the results of all tests
+	 */
+	public List<StatisticalTestBattery.Result> statisticalTests(BitSource source, long bits) {
+		StatisticalTestBattery battery = new StatisticalTestBattery();
+		long[] words = new long[Constants.BIT_SOURCE_WORDS];
+		
+		while(bits > 0) {
+			int chunk = (int)Math.min(bits, (long)words.length * Long.SIZE);
+			
+			source.nextWords(words, (chunk + Long.SIZE - 1) / Long.SIZE); // the bits of a last incomplete word are dropped
+			battery.accept(words, chunk);
+			bits -= chunk;
 		}
 		
-		return ((double)zeroes)/ones;
+		return battery.results();
 	}
 	
-	private ArrayList<Boolean> blumBlumShubPseudorandomSequence(BlumBlumShub generator, int periodLength, int windowSize) {
-		ArrayList<Boolean> sequence = new ArrayList<>(periodLength/2), ret = new ArrayList<>(periodLength/2);
-		String stringSequenceStart = "";
-		boolean first = true;
+	/**
+	 * One round of the equidistribution check, counts the zeroes and ones of source until its first 
+	 * {@value Constants#SEQUENCE_WINDOW_LENGTH} bits occur again. The bits are drawn in blocks of up to 
+	 * {@value Constants#BIT_SOURCE_WORDS} words into one buffer, so bits of the last block behind the end of the sequence 
+	 * are drawn from source as well, but never more words than maxBits needs.
+	 * @param source
+	 * @param seed of source for the result, null if there is none
+	 * @param maxBits the round also ends after maxBits bits, Long.MAX_VALUE for a sequence that is known to repeat
+	 * @param round index of the round
+	 * @return the result of the round with the ratio of zeroes and ones in the sequence up to its first repetition
+	 */
+	public RoundResult equidistribution(BitSource source, BigInteger seed, long maxBits, int round) {
+		Lane lane = new Lane(Constants.SEQUENCE_WINDOW_LENGTH, maxBits);
+		long[] words = new long[Constants.BIT_SOURCE_WORDS];
+		long remaining = maxBits / Long.SIZE + (maxBits % Long.SIZE != 0 ? 1 : 0); // words up to maxBits
+		
+		lane.reset(round);
 		
 		while(true) {
-			sequence.add(generator.nextBoolean());
+			int count = (int)Math.min(words.length, remaining);
 			
-			if(sequence.size() > 2 * windowSize) {
-				if(first) {
-					for(int i = 0; i < windowSize; i++) {
-						stringSequenceStart += (sequence.get(i) ? "1" : "0");
-					}
-					
-					first = false;
+			source.nextWords(words, count);
+			remaining -= count;
+			
+			for(int i = 0; i < count; i++) {
+				if(lane.accept(words[i])) {
+					return lane.result(seed);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Evaluates one round of the equidistribution check for every seed like {@link #equidistribution(BitSource, BigInteger, long, int)}, 
+	 * but on the lanes of one generator in lockstep. A lane that has found the repetition of its first 
+	 * {@value Constants#SEQUENCE_WINDOW_LENGTH} bits continues with the next seed.
+	 * @param generator
+	 * @param seeds
+	 * @param rounds receives the result of seeds[i] in rounds[i]
+	 * @param from first seed
+	 * @param to seeds before to are evaluated
+	 */
+	public void equidistribution(LockstepBlumBlumShub generator, BigInteger[] seeds, RoundResult[] rounds, int from, int to) {
+		Lane[] lanes = new Lane[generator.lanes()];
+		long[] words = new long[lanes.length];
+		int next = from, active = 0;
+		
+		for(int i = 0; i < lanes.length && next < to; i++, active++) {
+			lanes[i] = new Lane(Constants.SEQUENCE_WINDOW_LENGTH, Long.MAX_VALUE);
+			generator.setSeed(i, seeds[next]);
+			lanes[i].reset(next++);
+		}
+		
+		while(active > 0) {
+			generator.nextWords(words);
+			
+			for(int i = 0; i < lanes.length; i++) {
+				Lane lane = lanes[i];
+				
+				if(lane == null || lane.index < 0 || !lane.accept(words[i])) {
+					continue;
 				}
 				
-				if(checkSequenceRepeats(sequence, stringSequenceStart)) {
-					for(int i = 0; i < sequence.size() - windowSize; i++) {
-						ret.add(sequence.get(i));
-					}
-					
-					return ret;
+				rounds[lane.index] = lane.result(seeds[lane.index]);
+				
+				if(next < to) {
+					generator.setSeed(i, seeds[next]);
+					lane.reset(next++);
+				}
+				else {
+					lane.index = -1;
+					active--;
 				}
 			}
 		}
 	}
 	
 	/**
-	 * if the sequence contains a {@value Constants.SEQUENCE_WINDOW_LENGTH} long bit sequence at the and as at the start,
-	 * then the sequence is considered repeating
-	 * @param sequence
-	 * @param stringSequenceStart
-	 * @return true if the sequence repeats, false if not
+	 * Counts the bits of one round of the equidistribution check without storing them, the last windowSize bits are kept
+	 * as rolling word and compared with the first windowSize bits of the sequence. The sequence ends before the window 
+	 * that repeats its start, or after maxBits bits.
 	 */
-	private boolean checkSequenceRepeats(ArrayList<Boolean> sequence, String stringSequenceStart) {
-		int windowSize = stringSequenceStart.length();
+	private static class Lane {
+		private final int windowSize;
+		private final long mask, maxBits;
+		private AnalysisRoundEvent event;
+		private long window, sequenceStart, size, ones, start;
+		private int index = -1; // of the round, -1 if the lane is idle
 		
-		if(sequence.size() < windowSize) {
-			return false;
+		/**
+		 * 
+		 * @param windowSize 1 <= windowSize <= 64
+		 * @param maxBits
+		 */
+		Lane(int windowSize, long maxBits) {
+			if(windowSize < 1 || windowSize > Long.SIZE) {
+				throw new IllegalArgumentException("Window size has to be between 1 and " + Long.SIZE + ", got " + windowSize + ".");
+			}
+			
+			this.windowSize = windowSize;
+			this.maxBits = maxBits;
+			mask = -1L >>> (Long.SIZE - windowSize);
 		}
 		
-		String stringSequenceEnd = "";
+		/**
+		 * starts a new sequence
+		 * @param index of the round
+		 */
+		void reset(int index) {
+			this.index = index;
+			window = sequenceStart = size = ones = 0;
+			start = System.nanoTime();
+			event = new AnalysisRoundEvent();
+			event.begin();
+		}
 		
-		for(int i = 0; i < windowSize; i++) {
-			stringSequenceEnd += (sequence.get(sequence.size() - 1 - windowSize + i) ? "1" : "0");
+		/**
+		 * 
+		 * @param word next 64 bits of the sequence
+		 * @return true if the sequence ends within word, the bits behind are ignored
+		 */
+		boolean accept(long word) {
+			for(int bit = Long.SIZE - 1; bit >= 0; bit--) {
+				window = ((window << 1) | (word >>> bit & 1)) & mask;
+				size++;
+				
+				if(size == windowSize) {
+					sequenceStart = window;
+				}
+				else if(size > windowSize && window == sequenceStart) { // the window starting at size - windowSize repeats the start
+					ones += Long.bitCount(word >>> bit) - Long.bitCount(window);
+					size -= windowSize;
+					
+					return true;
+				}
+				
+				if(size == maxBits) {
+					ones += Long.bitCount(word >>> bit);
+					
+					return true;
+				}
+			}
+			
+			ones += Long.bitCount(word);
+			
+			return false;
 		}
- 		
-		try {
-			MessageDigest digest = MessageDigest.getInstance("SHA-256");
-			byte[] digestBytesStart, digestBytesEnd;
+		
+		/**
+		 * 
+		 * @param seed
+		 * @return the result of the completed sequence, also recorded in the metrics
+		 */
+		RoundResult result(BigInteger seed) {
+			double ratio = ((double)(size - ones))/ones;
+			long nanos = System.nanoTime() - start;
 			
-			digestBytesStart = digest.digest(stringSequenceStart.getBytes(StandardCharsets.US_ASCII));
-			digestBytesEnd = digest.digest(stringSequenceEnd.getBytes(StandardCharsets.US_ASCII));
+			Metrics.ANALYSIS_ROUNDS.increment();
+			Metrics.ANALYSIS_ROUND_LATENCY.record(nanos);
 			
-			for(int i = 0; i < digestBytesStart.length; i++) {
-				if(digestBytesStart[i] != digestBytesEnd[i]) {
-					return false;
-				}
+			if(event.shouldCommit()) {
+				event.sequenceLength = size;
+				event.ratio = ratio;
+				event.commit();
 			}
-		} catch (NoSuchAlgorithmException e) {
-			e.printStackTrace();
+			
+			return new RoundResult(index, seed, ratio, size, nanos);
 		}
-		
-		return true;
 	}
 	
 	/*private boolean isPeriod(boolean[] period, boolean[] follow) {
@@ -237,16 +653,72 @@ public class Analysis {
 			case "blumblumshub":
 				checkEquidistributionBlumBlumShub(securityParam, difficulty);
 				break;
-			case "javasecuerandom":
-				
+			case "blumblumshubperiod":
+				checkPeriodsBlumBlumShub(securityParam);
+				break;
+			case "blumblumshubstatistics":
+				checkStatisticsBlumBlumShub(securityParam);
+				break;
+			case "blumblumshubcycles":
+				checkCyclesBlumBlumShub(securityParam);
+				break;
+			case "blumblumshubsolve":
+				solveBlumBlumShub(securityParam, difficulty);
+				break;
+			case "javasecurerandom":
+			case "javasecuerandom": // misspelled name of earlier versions
+				checkEquidistribution(pseudorandomGeneratorName, BitSource.of(new SecureRandom()), securityParam, difficulty);
+				break;
+			case "javasecurerandomstatistics":
+				checkStatistics(BitSource.of(new SecureRandom()));
+				break;
+			case "splittablerandom":
+				checkEquidistribution(pseudorandomGeneratorName, BitSource.of(new SplittableRandom()), securityParam, difficulty);
+				break;
+			case "splittablerandomstatistics":
+				checkStatistics(BitSource.of(new SplittableRandom()));
+				break;
 			default:
-				out.println("Pseudorandom generator\"" + pseudorandomGeneratorName + "\" not known.");
+				RandomGenerator generator = randomGenerator(pseudorandomGeneratorName);
+				
+				if(generator != null) {
+					checkEquidistribution(pseudorandomGeneratorName, BitSource.of(generator), securityParam, difficulty);
+				}
+				else {
+					out.println("Pseudorandom generator\"" + pseudorandomGeneratorName + "\" not known.");
+				}
 		}
 		
 		return -1;
 	}
 	
-	public static void main(String[] args) {
-		new Analysis(true).checkEquidistribution("blumblumshub", 24, 1.5D);
+	/**
+	 * 
+	 * @param name of an algorithm of {@link RandomGenerator#of(String)}, e.g. L64X128MixRandom or Xoshiro256PlusPlus
+	 * @return a new generator of the algorithm or null if it is not available
+	 */
+	private static RandomGenerator randomGenerator(String name) {
+		try {
+			return RandomGenerator.of(name);
+		} catch(IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	public static void main(String[] args) throws IOException {
+		Analysis analysis = new Analysis(true);
+		int securityParam = 24;
+		double difficulty = 1.5D;
+		Path checkpointFile = Path.of("equidistribution.checkpoint");
+		SweepCheckpoint checkpoint = SweepCheckpoint.load(checkpointFile);
+		// a resumed sweep continues at its checkpoint, rounds written between the checkpoint and the interruption appear twice
+		boolean resume = checkpoint != null && checkpoint.matches(securityParam, difficulty);
+		
+		analysis.setCheckpointFile(checkpointFile);
+		
+		try(ResultSink results = new AsyncResultWriter(Path.of("equidistribution.csv"), AsyncResultWriter.Format.CSV, resume)) {
+			analysis.setResultSink(results);
+			analysis.checkEquidistribution("blumblumshub", securityParam, difficulty);
+		}
 	}
 }
@@ -0,0 +1,190 @@
+package analysis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes results to a file on a background thread. The analysis only puts the results into a bounded queue of
+ * {@value Constants#RESULT_QUEUE_CAPACITY} entries, the writer takes them out in batches of up to
+ * {@value Constants#RESULT_BATCH} and flushes the file whenever the queue runs empty. If the file can not keep up, a full
+ * queue blocks {@link #accept(RoundResult)} until the writer has made room, so the memory stays bounded.
+ */
+public class AsyncResultWriter implements ResultSink {
+	private final static RoundResult END = new RoundResult(-1, BigInteger.ZERO, Double.NaN, 0, 0); // queued by close()
+	private final BlockingQueue<RoundResult> queue = new ArrayBlockingQueue<>(Constants.RESULT_QUEUE_CAPACITY);
+	private final BufferedWriter writer;
+	private final Format format;
+	private final Thread thread;
+	private volatile IOException failure;
+	private volatile boolean closed;
+	
+	public enum Format {
+		CSV {
+			@Override
+			String header() {
+				return "round,seed,ratio,period,nanos";
+			}
+			
+			@Override
+			String format(RoundResult result) {
+				return result.getRound() + "," + (result.getSeed() != null ? result.getSeed() : "") + "," + result.getRatio() + "," + result.getPeriod() + "," + result.getNanos();
+			}
+		},
+		/**
+		 * JSON Lines, one object per line, the seed is a string since it does not fit a double in general
+		 */
+		JSONL {
+			@Override
+			String header() {
+				return null;
+			}
+			
+			@Override
+			String format(RoundResult result) {
+				double ratio = result.getRatio();
+				
+				return "{\"round\":" + result.getRound() + ",\"seed\":" + (result.getSeed() != null ? "\"" + result.getSeed() + "\"" : "null") + ",\"ratio\":" + (Double.isFinite(ratio) ? ratio : "null")
+						+ ",\"period\":" + result.getPeriod() + ",\"nanos\":" + result.getNanos() + "}";
+			}
+		};
+		
+		/**
+		 * 
+		 * @return first line of the file or null if there is none
+		 */
+		abstract String header();
+		
+		abstract String format(RoundResult result);
+	}
+	
+	/**
+	 * creates or truncates the file and starts the writer thread
+	 * @param file
+	 * @param format
+	 * @throws IOException
+	 */
+	public AsyncResultWriter(Path file, Format format) throws IOException {
+		this(file, format, false);
+	}
+	
+	/**
+	 * starts the writer thread, e.g. appends to the results of a resumed sweep instead of dropping the rounds before its checkpoint
+	 * @param file
+	 * @param format
+	 * @param append true to keep the existing results of file, the header is only written to a new or empty file
+	 * @throws IOException
+	 */
+	public AsyncResultWriter(Path file, Format format, boolean append) throws IOException {
+		boolean empty = !append || !Files.exists(file) || Files.size(file) == 0;
+		
+		writer = append ? Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND) 
+						: Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		this.format = format;
+		
+		if(empty && format.header() != null) {
+			writer.write(format.header());
+			writer.newLine();
+		}
+		
+		thread = new Thread(this::write, "result-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * blocks while the queue is full
+	 */
+	@Override
+	public void accept(RoundResult result) {
+		if(closed) {
+			throw new IllegalStateException("Result writer is closed.");
+		}
+		
+		try {
+			while(!queue.offer(result, 100, TimeUnit.MILLISECONDS)) {
+				checkFailure(); // a failed writer does not take any more results
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the result writer.", e);
+		}
+		
+		checkFailure();
+	}
+	
+	/**
+	 * writes all accepted results and closes the file
+	 * @throws UncheckedIOException if a result could not be written
+	 */
+	@Override
+	public void close() {
+		if(closed) {
+			return;
+		}
+		
+		closed = true;
+		
+		try {
+			while(thread.isAlive() && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) { // a failed writer does not take the end anymore
+			}
+			
+			thread.join();
+			writer.close();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		checkFailure();
+	}
+	
+	private void write() {
+		List<RoundResult> batch = new ArrayList<>(Constants.RESULT_BATCH);
+		
+		try {
+			while(true) {
+				batch.add(queue.take());
+				queue.drainTo(batch, Constants.RESULT_BATCH - 1);
+				
+				for(RoundResult result : batch) {
+					if(result == END) {
+						writer.flush();
+						
+						return;
+					}
+					
+					writer.write(format.format(result));
+					writer.newLine();
+				}
+				
+				batch.clear();
+				
+				if(queue.isEmpty()) {
+					writer.flush();
+				}
+			}
+		} catch(IOException e) {
+			failure = e;
+		} catch(InterruptedException e) {
+			failure = new IOException("Result writer interrupted.", e);
+		}
+	}
+	
+	private void checkFailure() {
+		if(failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+}
@@ -3,11 +3,30 @@ package analysis;
 public class Constants {
 	public final static int BLUM_NUMBER_PQ_ROUNDS = 100; // 
 	public final static int MAX_BLUM_BLUM_SHUB_PQ_RATIO = 2 << 10; // 2 < p/q <= 1024
-	public final static int MAX_MILLER_RABIN_BASE = 1 << 20; // 2 <= a <= 1048576
-	public final static int MILLER_RABIN_ROUNDS = 1 << 64; // 64 Rounds => pseudoprime number accepted as prime with probability less than (1/4)^64 = (1/2)^128
+	public final static int MILLER_RABIN_ROUNDS = 64; // 64 Rounds => pseudoprime number accepted as prime with probability less than (1/4)^64 = (1/2)^128
 	public final static int BIG_INTEGER_CERTANITY = MILLER_RABIN_ROUNDS << 1;
+	public final static int ENTROPY_BUFFER_BYTES = 1 << 10; // bytes fetched from the operating system per refill of MySecureRandom
+	public final static int STRONG_PRIME_SIEVE_PRIMES = 2048; // odd small primes sieved out of strong prime candidates q and 2q + 1
+	public final static int STRONG_PRIME_SIEVE_WINDOW = 1 << 12; // candidates q = start + 2k, 0 <= k < window, sieved per random start
 	public final static int WEAK_SEED_FACTOR = 8; // if the length of the sequence is smaller than lambda(lambda(n))/8 the cycle is regarded as degenerated
-	public final static int SEQUENCE_WINDOW_LENGTH = 64; // length of the hash-window to check if a sequence starts to repeat
+	public final static int SEQUENCE_WINDOW_LENGTH = 64; // length of the window (at most 64 bits) to check if a sequence starts to repeat
 	
+	public final static int STATISTICAL_TEST_BITS = 1 << 20; // bits per generator fed into the StatisticalTestBattery
+	public final static int BLOCK_FREQUENCY_BLOCK_LENGTH = 128; // NIST SP 800-22 recommends 20 <= M <= n/100
+	public final static int SERIAL_TEST_PATTERN_LENGTH = 8; // NIST SP 800-22 requires m < log2(n) - 2
+	public final static int AUTOCORRELATION_SHIFT = 8;
+	public final static double SIGNIFICANCE_LEVEL = 0.01; // a test fails if its p-value is below
 	public final static int EQUIDISTRIBUTION_ROUNDS = 1000; // rounds to check wether a seed generates a proof-of-work-fullfilling pseudorandom sequence
+	public final static int CHECKPOINT_ROUNDS = 100; // rounds of a sweep between two checkpoints
+	public final static int WEAK_SEED_STORE_CAPACITY = 1024; // initial number of records of a WeakSeedStore, doubled when full
+	public final static int CYCLE_MAPPER_MAX_BITS = 36; // largest modulus of the CycleMapper, its bitmap takes n/8 bytes (8 GiB for 36 bits)
+	public final static int CYCLE_MAPPER_RANGE = 1 << 16; // smallest range of start states evaluated by one task of the CycleMapper
+	public final static int POW_SEQUENCE_LENGTH = 256; // bits of the sequence of a proof-of-work challenge
+	public final static int POW_NONCE_BLOCK = 64; // nonces a worker of the ParallelSolver takes from the shared counter at once
+	public final static int LOCKSTEP_LANES = 16; // seeds of a sweep evaluated in lockstep by one worker if the modulus is small enough
+	public final static int RESULT_QUEUE_CAPACITY = 1 << 12; // results an AsyncResultWriter buffers before the analysis has to wait for the file
+	public final static int RESULT_BATCH = 256; // results the AsyncResultWriter takes from its queue at once
+	public final static long EQUIDISTRIBUTION_BASELINE_BITS = 1L << 24; // longest round of the equidistribution check on a generator without a period
+	public final static int BIT_SOURCE_WORDS = 64; // words taken from a BitSource at once by the statistical tests
+	public final static int POW_MAX_ISSUED_CHALLENGES = 1 << 16; // live challenges of an Issuer, the oldest one expires when another one is issued
 }
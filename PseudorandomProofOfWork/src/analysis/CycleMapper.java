@@ -0,0 +1,296 @@
+package analysis;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import math.Functions;
+import math.MontgomeryLong;
+
+/**
+ * Maps the complete structure of x -> x^2 mod n over Z_n^* for small Blum-numbers n = pq by walking every state once.
+ * For a Blum-number squaring permutes the quadratic residues QR_n, so every residue lies on a cycle without tail and
+ * every other seed of Z_n^* enters a cycle after one step, each residue being the square of exactly 4 seeds.
+ * The orbits are walked in Montgomery form, which is a permutation of [0, n), and the visited states are marked in an
+ * {@link OffHeapBitmap} of n bits. The residues are partitioned into ranges evaluated in ascending order on a work-stealing
+ * pool, a cycle is counted by the worker whose start is its smallest state, any other walk stops at the first smaller state,
+ * so a single worker walks every cycle from its smallest state.
+ * The result is the exact ground truth for the sampled seeds of {@link Analysis}.
+ */
+public class CycleMapper {
+	private final MontgomeryLong montgomery;
+	private final long modulus, p, q, maxPeriodLength;
+	private final int parallelism;
+	private final boolean[] residuesP, residuesQ; // r -> r = x^2*R mod p, the quadratic residues mod p in Montgomery form
+	private OffHeapBitmap owned; // states of the cycles whose smallest state was reached by its owner
+	
+	/**
+	 * 
+	 * @param p Blum prime < 2^31
+	 * @param q Blum prime < 2^31 with pq < 2^{@value Constants#CYCLE_MAPPER_MAX_BITS}
+	 * @param parallelism number of worker threads
+	 */
+	public CycleMapper(BigInteger p, BigInteger q, int parallelism) {
+		BigInteger n = p.multiply(q);
+		
+		if(n.bitLength() > Constants.CYCLE_MAPPER_MAX_BITS || p.bitLength() >= Integer.SIZE || q.bitLength() >= Integer.SIZE || parallelism < 1) {
+			throw new IllegalArgumentException("Modulus " + n + " = " + p + "*" + q + " has more than " + Constants.CYCLE_MAPPER_MAX_BITS 
+					+ " bits or a factor with 31 bits, or invalid parallelism " + parallelism + ".");
+		}
+		
+		montgomery = new MontgomeryLong(n.longValue());
+		modulus = n.longValue();
+		this.p = p.longValue();
+		this.q = q.longValue();
+		maxPeriodLength = Functions.maxPeriodLengthBlumBlumShub(p, q).longValue();
+		this.parallelism = parallelism;
+		residuesP = residues(p);
+		residuesQ = residues(q);
+	}
+	
+	/**
+	 * walks all cycles, needs n/8 bytes of direct memory while running
+	 * @return the cycle structure of the quadratic residues
+	 */
+	public Structure map() {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		
+		owned = new OffHeapBitmap(modulus);
+		
+		try {
+			return pool.invoke(new Sweep(1, modulus, Math.max(Constants.CYCLE_MAPPER_RANGE, modulus / (8L * parallelism))));
+		} finally {
+			pool.shutdown();
+			owned = null;
+		}
+	}
+	
+	/**
+	 * 
+	 * @param seed
+	 * @return true if seed is an element of Z_n^* and its orbit ends in a cycle shorter than
+	 * 			carmichael(carmichael(n))/{@value Constants#WEAK_SEED_FACTOR}
+	 */
+	public boolean isWeakSeed(BigInteger seed) {
+		long x = seed.mod(BigInteger.valueOf(modulus)).longValue();
+		
+		if(x % p == 0 || x % q == 0) {
+			return false;
+		}
+		
+		long start = montgomery.square(montgomery.toMontgomery(x)), state = start;
+		
+		for(long length = 1; isWeak(length); length++) {
+			if((state = montgomery.square(state)) == start) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * 
+	 * @param structure result of {@link #map()}
+	 * @return all quadratic residues on the weak cycles in ascending order, the weak seeds are their square roots
+	 */
+	public long[] weakStates(Structure structure) {
+		long[] ret = new long[(int)structure.getWeakStates()];
+		int i = 0;
+		
+		for(Map.Entry<Long, Long> e : structure.getWeakCycles().entrySet()) {
+			long state = montgomery.toMontgomery(e.getKey());
+			
+			for(long j = 0; j < e.getValue(); j++, state = montgomery.square(state)) {
+				ret[i++] = montgomery.fromMontgomery(state);
+			}
+		}
+		
+		Arrays.sort(ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param prime
+	 * @return true on index r if r is a quadratic residue mod prime in Montgomery form x^2*R with R = 2^64
+	 */
+	private static boolean[] residues(BigInteger prime) {
+		boolean[] ret = new boolean[prime.intValue()];
+		long r = BigInteger.ONE.shiftLeft(Long.SIZE).mod(prime).longValue(), modulus = prime.longValue();
+		
+		for(long x = 1; x <= modulus/2; x++) { // x and -x have the same square
+			ret[(int)(x * x % modulus * r % modulus)] = true;
+		}
+		
+		return ret;
+	}
+	
+	private boolean isWeak(long cycleLength) {
+		return cycleLength * Constants.WEAK_SEED_FACTOR < maxPeriodLength;
+	}
+	
+	/**
+	 * 
+	 * @param start state in Montgomery form
+	 * @return the length of the cycle through start if start is its smallest state in Montgomery form, else 0
+	 */
+	private long ownedCycleLength(long start) {
+		long state = start, ret = 0;
+		
+		do {
+			state = montgomery.square(state);
+			ret++;
+			
+			if(state < start) {
+				return 0;
+			}
+		} while(state != start);
+		
+		return ret;
+	}
+	
+	/**
+	 * evaluates the quadratic residues with Montgomery forms in [from, to) as start states and splits itself while the range
+	 * is larger than threshold
+	 */
+	private class Sweep extends RecursiveTask<Structure> {
+		private static final long serialVersionUID = 1L;
+		private long from, to, threshold;
+		
+		Sweep(long from, long to, long threshold) {
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected Structure compute() {
+			if(to - from > threshold) {
+				long middle = (from + to) >>> 1;
+				Sweep upper = new Sweep(middle, to, threshold);
+				
+				upper.fork();
+				
+				return new Sweep(from, middle, threshold).compute().merge(upper.join());
+			}
+			
+			Structure ret = new Structure(modulus);
+			
+			int residueP = (int)(from % p), residueQ = (int)(from % q); // start mod p and q, maintained without division
+			
+			for(long start = from, length; start < to; start++, residueP = residueP + 1 == p ? 0 : residueP + 1, residueQ = residueQ + 1 == q ? 0 : residueQ + 1) {
+				// the zero entries of the tables exclude the states not coprime to n
+				if(!residuesP[residueP] || !residuesQ[residueQ] || owned.get(start) || (length = ownedCycleLength(start)) == 0) {
+					continue;
+				}
+				
+				long state = start;
+				
+				do {
+					owned.set(state);
+					state = montgomery.square(state);
+				} while(state != start);
+				
+				ret.add(montgomery.fromMontgomery(start), length, isWeak(length));
+			}
+			
+			return ret;
+		}
+	}
+	
+	/**
+	 * cycle structure of x -> x^2 on the quadratic residues modulo n
+	 */
+	public static class Structure {
+		private final long modulus;
+		private long cycles, states, weakStates;
+		private SortedMap<Long, Long> lengths = new TreeMap<>(), // cycle length -> number of cycles
+									  weakCycles = new TreeMap<>(); // a state of each weak cycle -> its length
+		
+		Structure(long modulus) {
+			this.modulus = modulus;
+		}
+		
+		private void add(long state, long length, boolean weak) {
+			cycles++;
+			states += length;
+			lengths.merge(length, 1L, Long::sum);
+			
+			if(weak) {
+				weakStates += length;
+				weakCycles.put(state, length);
+			}
+		}
+		
+		private Structure merge(Structure other) {
+			cycles += other.cycles;
+			states += other.states;
+			weakStates += other.weakStates;
+			other.lengths.forEach((length, count) -> lengths.merge(length, count, Long::sum));
+			weakCycles.putAll(other.weakCycles);
+			
+			return this;
+		}
+		
+		public long getModulus() {
+			return modulus;
+		}
+		
+		public long getCycles() {
+			return cycles;
+		}
+		
+		/**
+		 * 
+		 * @return number of quadratic residues, phi(n)/4
+		 */
+		public long getStates() {
+			return states;
+		}
+		
+		/**
+		 * 
+		 * @return cycle length -> number of cycles with this length
+		 */
+		public SortedMap<Long, Long> getLengths() {
+			return Collections.unmodifiableSortedMap(lengths);
+		}
+		
+		/**
+		 * 
+		 * @return a state of every weak cycle -> its length
+		 */
+		public SortedMap<Long, Long> getWeakCycles() {
+			return Collections.unmodifiableSortedMap(weakCycles);
+		}
+		
+		/**
+		 * 
+		 * @return number of quadratic residues on weak cycles, 4 times as many seeds of Z_n^* are weak
+		 */
+		public long getWeakStates() {
+			return weakStates;
+		}
+		
+		/**
+		 * 
+		 * @return fraction of the seeds of Z_n^* which are weak
+		 */
+		public double weakSeedFraction() {
+			return (double)weakStates/states;
+		}
+		
+		@Override
+		public String toString() {
+			return "n = " + modulus + ": " + cycles + " cycles over " + states + " quadratic residues, lengths " + lengths
+					+ ", " + weakCycles.size() + " weak cycles with " + weakStates + " states (weak seed fraction " + weakSeedFraction() + ")";
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package analysis;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * fixed size bitmap in direct memory outside of the heap, split into chunks because a ByteBuffer holds at most 2^31 bytes.
+ * Bits are set with an atomic bitwise or on the long containing them, so several threads can mark the same bitmap.
+ */
+public class OffHeapBitmap {
+	private final static int CHUNK_BYTES = 1 << 30;
+	private final static int CHUNK_SHIFT = 33; // log2 of the bits per chunk
+	private final static VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+	private final ByteBuffer[] chunks;
+	private final long size;
+	
+	/**
+	 * 
+	 * @param size number of bits, all cleared
+	 */
+	public OffHeapBitmap(long size) {
+		long bytes = (size + Long.SIZE - 1) / Long.SIZE * Long.BYTES;
+		
+		if(size < 0) {
+			throw new IllegalArgumentException("Invalid size " + size + ".");
+		}
+		
+		this.size = size;
+		chunks = new ByteBuffer[(int)Math.max(1, (bytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+		
+		for(int i = 0; i < chunks.length; i++) {
+			chunks[i] = ByteBuffer.allocateDirect((int)Math.min(CHUNK_BYTES, bytes - (long)i * CHUNK_BYTES)); // zeroed
+		}
+	}
+	
+	public boolean get(long index) {
+		return ((long)LONGS.get(chunk(index), offset(index)) & 1L << index) != 0;
+	}
+	
+	/**
+	 * 
+	 * @param index
+	 * @return true if the bit was cleared before
+	 */
+	public boolean set(long index) {
+		long bit = 1L << index;
+		
+		return ((long)LONGS.getAndBitwiseOr(chunk(index), offset(index), bit) & bit) == 0;
+	}
+	
+	public long size() {
+		return size;
+	}
+	
+	private ByteBuffer chunk(long index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size + ".");
+		}
+		
+		return chunks[(int)(index >>> CHUNK_SHIFT)];
+	}
+	
+	/**
+	 * 
+	 * @param index
+	 * @return byte offset of the long holding the bit within its chunk
+	 */
+	private static int offset(long index) {
+		return (int)((index & (1L << CHUNK_SHIFT) - 1) >>> 6) << 3;
+	}
+}
@@ -0,0 +1,30 @@
+package analysis;
+
+/**
+ * tail and cycle of the orbit x, f(x), f(f(x)), ... of a function f on a finite set
+ */
+public class Period {
+	private long tailLength, cycleLength;
+	
+	public Period(long tailLength, long cycleLength) {
+		this.tailLength = tailLength;
+		this.cycleLength = cycleLength;
+	}
+	
+	/**
+	 * 
+	 * @return number of states before the orbit enters its cycle
+	 */
+	public long getTailLength() {
+		return tailLength;
+	}
+	
+	public long getCycleLength() {
+		return cycleLength;
+	}
+	
+	@Override
+	public String toString() {
+		return "tail " + tailLength + ", cycle " + cycleLength;
+	}
+}
@@ -0,0 +1,129 @@
+package analysis;
+
+import java.math.BigInteger;
+
+import generators.BlumBlumShub;
+import math.MontgomeryLong;
+
+/**
+ * finds the exact tail and cycle length of the Blum-Blum-Shub orbit x -> x^2 mod n with Brent's cycle detection 
+ * on the generator state, which needs O(1) memory instead of storing the output sequence
+ */
+public class PeriodFinder {
+	/**
+	 * 
+	 * @param generator
+	 * @return tail and cycle of the orbit starting at the current state of generator, the generator is not changed
+	 */
+	public static Period find(BlumBlumShub generator) {
+		return find(generator.getCurrent(), generator.getModulus(), Long.MAX_VALUE);
+	}
+	
+	/**
+	 * 
+	 * @param start
+	 * @param modulus
+	 * @param maxLength
+	 * @return tail and cycle of the orbit of start under x -> x^2 mod modulus or null if the cycle or the tail
+	 * 			is longer than maxLength
+	 */
+	public static Period find(BigInteger start, BigInteger modulus, long maxLength) {
+		if(MontgomeryLong.fits(modulus)) {
+			MontgomeryLong montgomery = new MontgomeryLong(modulus);
+			
+			return findMontgomery(montgomery.toMontgomery(start.mod(modulus).longValue()), montgomery, maxLength);
+		}
+		
+		return findBigInteger(start.mod(modulus), modulus, maxLength);
+	}
+	
+	/**
+	 * 
+	 * @param period
+	 * @param maxPeriodLength carmichael(carmichael(n))
+	 * @return true if the cycle is shorter than maxPeriodLength/{@value Constants#WEAK_SEED_FACTOR}
+	 */
+	public static boolean isWeak(Period period, BigInteger maxPeriodLength) {
+		return period != null && BigInteger.valueOf(period.getCycleLength()).multiply(BigInteger.valueOf(Constants.WEAK_SEED_FACTOR)).compareTo(maxPeriodLength) < 0;
+	}
+	
+	/**
+	 * 
+	 * @param maxPeriodLength carmichael(carmichael(n))
+	 * @return the length limit for {@link #find(BigInteger, BigInteger, long)} to decide if a seed is weak, 
+	 * 			longer cycles are never weak
+	 */
+	public static long weakLimit(BigInteger maxPeriodLength) {
+		return maxPeriodLength.divide(BigInteger.valueOf(Constants.WEAK_SEED_FACTOR)).min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+	}
+	
+	/**
+	 * Brent's algorithm in Montgomery form, squaring commutes with the conversion so the orbit has the same structure
+	 */
+	private static Period findMontgomery(long start, MontgomeryLong montgomery, long maxLength) {
+		long power = 1, cycleLength = 1, tailLength = 0, tortoise = start, hare = montgomery.square(start);
+		
+		while(tortoise != hare) {
+			if(cycleLength > maxLength) {
+				return null;
+			}
+			
+			if(power == cycleLength) { // move the tortoise to the hare and double the search window
+				tortoise = hare;
+				power <<= 1;
+				cycleLength = 0;
+			}
+			
+			hare = montgomery.square(hare);
+			cycleLength++;
+		}
+		
+		tortoise = hare = start;
+		
+		for(long i = 0; i < cycleLength; i++) { // hare is cycleLength steps ahead, both meet at the start of the cycle
+			hare = montgomery.square(hare);
+		}
+		
+		while(tortoise != hare) {
+			tortoise = montgomery.square(tortoise);
+			hare = montgomery.square(hare);
+			tailLength++;
+		}
+		
+		return new Period(tailLength, cycleLength);
+	}
+	
+	private static Period findBigInteger(BigInteger start, BigInteger modulus, long maxLength) {
+		long power = 1, cycleLength = 1, tailLength = 0;
+		BigInteger tortoise = start, hare = start.multiply(start).mod(modulus);
+		
+		while(tortoise.compareTo(hare) != 0) {
+			if(cycleLength > maxLength) {
+				return null;
+			}
+			
+			if(power == cycleLength) {
+				tortoise = hare;
+				power <<= 1;
+				cycleLength = 0;
+			}
+			
+			hare = hare.multiply(hare).mod(modulus);
+			cycleLength++;
+		}
+		
+		tortoise = hare = start;
+		
+		for(long i = 0; i < cycleLength; i++) {
+			hare = hare.multiply(hare).mod(modulus);
+		}
+		
+		while(tortoise.compareTo(hare) != 0) {
+			tortoise = tortoise.multiply(tortoise).mod(modulus);
+			hare = hare.multiply(hare).mod(modulus);
+			tailLength++;
+		}
+		
+		return new Period(tailLength, cycleLength);
+	}
+}
@@ -17,4 +17,14 @@ public class Print extends PrintStream {
 			super.println(print);
 		}
 	}
+	
+	/**
+	 * println(String) does not delegate to println(Object), so it has to be suppressed as well
+	 */
+	@Override
+	public void println(String print) {
+		if(dump) {
+			super.println(print);
+		}
+	}
 }
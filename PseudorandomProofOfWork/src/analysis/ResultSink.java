@@ -0,0 +1,23 @@
+package analysis;
+
+import java.io.Closeable;
+
+/**
+ * receives the result of every round of an analysis, in the order of the rounds
+ */
+public interface ResultSink extends Closeable {
+	/**
+	 * drops all results, e.g. for benchmarks
+	 */
+	public final static ResultSink NONE = result -> {};
+	
+	/**
+	 * 
+	 * @param result
+	 */
+	public void accept(RoundResult result);
+	
+	@Override
+	public default void close() {
+	}
+}
@@ -0,0 +1,54 @@
+package analysis;
+
+import java.math.BigInteger;
+
+/**
+ * result of one round of the equidistribution check
+ */
+public class RoundResult {
+	private final BigInteger seed;
+	private final double ratio;
+	private final long period, nanos;
+	private final int round;
+	
+	/**
+	 * 
+	 * @param round index of the round in its sweep
+	 * @param seed null for a generator without a seed
+	 * @param ratio of zeroes and ones
+	 * @param period length of the sequence up to its first repetition
+	 * @param nanos time from the start of the round to its result
+	 */
+	public RoundResult(int round, BigInteger seed, double ratio, long period, long nanos) {
+		this.round = round;
+		this.seed = seed;
+		this.ratio = ratio;
+		this.period = period;
+		this.nanos = nanos;
+	}
+	
+	public int getRound() {
+		return round;
+	}
+	
+	public BigInteger getSeed() {
+		return seed;
+	}
+	
+	public double getRatio() {
+		return ratio;
+	}
+	
+	public long getPeriod() {
+		return period;
+	}
+	
+	public long getNanos() {
+		return nanos;
+	}
+	
+	@Override
+	public String toString() {
+		return "round " + round + ", seed " + seed + ", ratio " + ratio + ", period " + period + ", " + nanos + " ns";
+	}
+}
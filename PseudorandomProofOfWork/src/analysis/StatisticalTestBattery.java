@@ -0,0 +1,330 @@
+package analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import math.Functions;
+
+/**
+ * Streaming battery of tests from NIST SP 800-22 (monobit, block frequency, runs, longest run of ones in a block, serial)
+ * and the autocorrelation test. The bits are consumed as packed words with the first bit as most significant bit like
+ * {@link generators.BitSource}, every statistic is updated incrementally in one pass and the memory does not depend on the
+ * number of bits, so the p-values of a sequence are available without generating it once per test.
+ */
+public class StatisticalTestBattery {
+	private final static int LONGEST_RUN_BLOCK_LENGTH = 128;
+	// probabilities of the longest run of ones in a block of 128 bits being <= 4, 5, 6, 7, 8 and >= 9 bits (NIST SP 800-22 3.4)
+	private final static double[] LONGEST_RUN_PROBABILITIES = {0.1174, 0.2430, 0.2493, 0.1752, 0.1027, 0.1124};
+	private final int blockFrequencyLength, serialLength, autocorrelationShift;
+	private long size, ones, transitions, differences, // differences of the bits i and i + autocorrelationShift
+				 history; // the last 64 bits, the last one as least significant bit
+	private long blockFrequencyBlocks, blockOnes;
+	private int blockFrequencyBits;
+	private double blockFrequencySum; // sum of (ones/blockFrequencyLength - 1/2)^2 over all complete blocks
+	private long[] longestRuns = new long[LONGEST_RUN_PROBABILITIES.length];
+	private int longestRunBits, currentRun, longestRun;
+	private long[] patterns; // overlapping serialLength bit patterns
+	private int pattern, head; // head holds the first serialLength - 1 bits for the cyclic extension of the sequence
+	
+	public StatisticalTestBattery() {
+		this(Constants.BLOCK_FREQUENCY_BLOCK_LENGTH, Constants.SERIAL_TEST_PATTERN_LENGTH, Constants.AUTOCORRELATION_SHIFT);
+	}
+	
+	/**
+	 * 
+	 * @param blockFrequencyLength bits per block of the block frequency test
+	 * @param serialLength 3 <= serialLength <= 24, pattern length of the serial test
+	 * @param autocorrelationShift 1 <= autocorrelationShift <= 63
+	 */
+	public StatisticalTestBattery(int blockFrequencyLength, int serialLength, int autocorrelationShift) {
+		if(blockFrequencyLength < 1 || serialLength < 3 || serialLength > 24 || autocorrelationShift < 1 || autocorrelationShift >= Long.SIZE) {
+			throw new IllegalArgumentException("Invalid block length " + blockFrequencyLength + ", pattern length " + serialLength + " or shift " + autocorrelationShift + ".");
+		}
+		
+		this.blockFrequencyLength = blockFrequencyLength;
+		this.serialLength = serialLength;
+		this.autocorrelationShift = autocorrelationShift;
+		patterns = new long[1 << serialLength];
+	}
+	
+	/**
+	 * 
+	 * @param word
+	 * @param bits 0 <= bits <= 64, number of bits taken from word starting with its most significant bit
+	 */
+	public void accept(long word, int bits) {
+		if(bits <= 0) {
+			return;
+		}
+		
+		long valid = top(-1L, bits), successors = valid;
+		int shift = autocorrelationShift;
+		
+		word &= valid;
+		ones += Long.bitCount(word);
+		
+		// every bit is compared with its predecessor, taken from the history for the first one
+		if(size == 0) {
+			successors &= -1L >>> 1;
+		}
+		
+		transitions += Long.bitCount((word ^ (word >>> 1 | history << 63)) & successors);
+		
+		// the bits before index autocorrelationShift have no partner
+		if(size < shift) {
+			valid &= -1L >>> (shift - size);
+		}
+		
+		differences += Long.bitCount((word ^ (word >>> shift | history << (Long.SIZE - shift))) & valid);
+		
+		blockFrequency(word, bits);
+		longestRun(word, bits);
+		serial(word, bits);
+		
+		history = bits == Long.SIZE ? word : history << bits | word >>> (Long.SIZE - bits);
+		size += bits;
+	}
+	
+	/**
+	 * 
+	 * @param words bits packed with the first bit as most significant bit
+	 * @param bitCount number of bits taken from words
+	 */
+	public void accept(long[] words, long bitCount) {
+		for(int i = 0; bitCount > 0; i++, bitCount -= Long.SIZE) {
+			accept(words[i], (int)Math.min(Long.SIZE, bitCount));
+		}
+	}
+	
+	/**
+	 * 
+	 * @return number of bits consumed
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * evaluates all tests on the bits consumed so far, more bits can be consumed afterwards
+	 * @return one result per test, a p-value of NaN if the sequence is too short for the test
+	 */
+	public List<Result> results() {
+		List<Result> ret = new ArrayList<>();
+		double n = size, sum = 2.0*ones - n, proportion = ones/n, statistic;
+		
+		// monobit: |#ones - #zeroes|/sqrt(n) is half normal
+		statistic = Math.abs(sum)/Math.sqrt(n);
+		ret.add(new Result("monobit", statistic, Functions.erfc(statistic/Math.sqrt(2))));
+		
+		// block frequency: chi^2 = 4M*sum((pi_i - 1/2)^2) with N degrees of freedom
+		statistic = 4.0*blockFrequencyLength*blockFrequencySum;
+		ret.add(new Result("block frequency", statistic, blockFrequencyBlocks == 0 ? Double.NaN : Functions.igamc(blockFrequencyBlocks/2.0, statistic/2)));
+		
+		// runs: number of runs V = transitions + 1, only meaningful if the monobit proportion is close enough to 1/2
+		statistic = transitions + 1;
+		ret.add(new Result("runs", statistic, Math.abs(proportion - 0.5) >= 2/Math.sqrt(n) ? 0
+				: Functions.erfc(Math.abs(statistic - 2*n*proportion*(1 - proportion))/(2*Math.sqrt(2*n)*proportion*(1 - proportion)))));
+		
+		ret.add(longestRunResult());
+		ret.addAll(serialResults());
+		
+		// autocorrelation: the number of differences A(d) of bits d apart is normal with mean (n - d)/2 and variance (n - d)/4
+		statistic = (2*differences - (n - autocorrelationShift))/Math.sqrt(n - autocorrelationShift);
+		ret.add(new Result("autocorrelation", statistic, n <= autocorrelationShift ? Double.NaN : Functions.erfc(Math.abs(statistic)/Math.sqrt(2))));
+		
+		return ret;
+	}
+	
+	private void blockFrequency(long word, int bits) {
+		while(bits > 0) {
+			int take = Math.min(bits, blockFrequencyLength - blockFrequencyBits);
+			
+			blockOnes += Long.bitCount(top(word, take));
+			blockFrequencyBits += take;
+			
+			if(blockFrequencyBits == blockFrequencyLength) {
+				double deviation = (double)blockOnes/blockFrequencyLength - 0.5;
+				
+				blockFrequencySum += deviation*deviation;
+				blockFrequencyBlocks++;
+				blockOnes = 0;
+				blockFrequencyBits = 0;
+			}
+			
+			word = take == Long.SIZE ? 0 : word << take;
+			bits -= take;
+		}
+	}
+	
+	/**
+	 * the longest run of a block is assembled from the segments of the words within the block, a run of ones
+	 * reaching the end of a segment continues in the next one
+	 */
+	private void longestRun(long word, int bits) {
+		while(bits > 0) {
+			int take = Math.min(bits, LONGEST_RUN_BLOCK_LENGTH - longestRunBits);
+			long segment = top(word, take);
+			
+			if(segment == top(-1L, take)) { // only ones
+				currentRun += take;
+			}
+			else {
+				longestRun = Math.max(longestRun, Math.max(currentRun + Long.numberOfLeadingZeros(~segment), longestRun(segment)));
+				currentRun = Long.numberOfTrailingZeros(~(segment >>> (Long.SIZE - take)));
+			}
+			
+			longestRunBits += take;
+			
+			if(longestRunBits == LONGEST_RUN_BLOCK_LENGTH) {
+				longestRun = Math.max(longestRun, currentRun);
+				longestRuns[Math.min(Math.max(longestRun - 4, 0), longestRuns.length - 1)]++;
+				longestRun = 0;
+				currentRun = 0;
+				longestRunBits = 0;
+			}
+			
+			word = take == Long.SIZE ? 0 : word << take;
+			bits -= take;
+		}
+	}
+	
+	private void serial(long word, int bits) {
+		int mask = patterns.length - 1;
+		
+		for(int i = 0; i < bits; i++, word <<= 1) {
+			int bit = (int)(word >>> (Long.SIZE - 1));
+			
+			pattern = (pattern << 1 | bit) & mask;
+			
+			if(size + i >= serialLength - 1) {
+				patterns[pattern]++;
+			}
+			else {
+				head = head << 1 | bit;
+			}
+		}
+	}
+	
+	private Result longestRunResult() {
+		long blocks = 0;
+		double statistic = 0;
+		
+		for(long count : longestRuns) {
+			blocks += count;
+		}
+		
+		for(int i = 0; i < longestRuns.length; i++) {
+			double expected = blocks*LONGEST_RUN_PROBABILITIES[i];
+			
+			statistic += (longestRuns[i] - expected)*(longestRuns[i] - expected)/expected;
+		}
+		
+		return new Result("longest run", statistic, blocks == 0 ? Double.NaN : Functions.igamc((longestRuns.length - 1)/2.0, statistic/2));
+	}
+	
+	/**
+	 * psi^2_m = 2^m/n*sum(count^2) - n over the overlapping m bit patterns of the sequence extended cyclically by its first
+	 * m - 1 bits, the counts of m - 1 bit patterns are the sums of the counts of their two extensions
+	 */
+	private List<Result> serialResults() {
+		List<Result> ret = new ArrayList<>();
+		long[] counts = patterns.clone();
+		int m = serialLength, extended = pattern, mask = counts.length - 1;
+		double[] psi = new double[3];
+		
+		if(size < m) {
+			ret.add(new Result("serial 1", Double.NaN, Double.NaN));
+			ret.add(new Result("serial 2", Double.NaN, Double.NaN));
+			
+			return ret;
+		}
+		
+		for(int i = m - 2; i >= 0; i--) { // the first m - 1 bits once more
+			extended = (extended << 1 | (head >>> i & 1)) & mask;
+			counts[extended]++;
+		}
+		
+		for(int j = 0; j < psi.length; j++, m--) {
+			double sum = 0;
+			
+			for(int i = 0; i < 1 << m; i++) {
+				sum += (double)counts[i]*counts[i];
+				
+				if(i % 2 == 1) {
+					counts[i/2] = counts[i - 1] + counts[i]; // counts of the m - 1 bit patterns
+				}
+			}
+			
+			psi[j] = m == 0 ? 0 : sum*(1L << m)/size - size;
+		}
+		
+		double first = psi[0] - psi[1], second = psi[0] - 2*psi[1] + psi[2];
+		
+		ret.add(new Result("serial 1", first, Functions.igamc(Math.pow(2, serialLength - 2), first/2)));
+		ret.add(new Result("serial 2", second, Functions.igamc(Math.pow(2, serialLength - 3), second/2)));
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param word
+	 * @param bits 0 <= bits <= 64
+	 * @return the first bits bits of word, the others cleared
+	 */
+	private static long top(long word, int bits) {
+		return bits == 0 ? 0 : word & -1L << (Long.SIZE - bits);
+	}
+	
+	/**
+	 * 
+	 * @param word
+	 * @return the length of the longest run of ones in word
+	 */
+	private static int longestRun(long word) {
+		int ret = 0;
+		
+		for(; word != 0; ret++) {
+			word &= word << 1;
+		}
+		
+		return ret;
+	}
+	
+	public static class Result {
+		private final String name;
+		private final double statistic, pValue;
+		
+		Result(String name, double statistic, double pValue) {
+			this.name = name;
+			this.statistic = statistic;
+			this.pValue = pValue;
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public double getStatistic() {
+			return statistic;
+		}
+		
+		public double getPValue() {
+			return pValue;
+		}
+		
+		/**
+		 * 
+		 * @param significance e.g. 0.01
+		 * @return true if the sequence is accepted as random at the significance level
+		 */
+		public boolean passed(double significance) {
+			return pValue >= significance;
+		}
+		
+		@Override
+		public String toString() {
+			return name + ": statistic " + statistic + ", p-value " + pValue;
+		}
+	}
+}
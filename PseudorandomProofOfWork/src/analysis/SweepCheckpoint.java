@@ -0,0 +1,129 @@
+package analysis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * progress of an equidistribution sweep: the modulus, all seeds drawn up front and the number of rounds whose results
+ * are committed, so a sweep can be resumed after a crash with the next round. The file contains the factorization p and q,
+ * so it is only readable by its owner on POSIX file systems.
+ */
+public class SweepCheckpoint {
+	private BigInteger p, q;
+	private BigInteger[] seeds;
+	private double difficulty;
+	private int securityParam, nextRound;
+	
+	public SweepCheckpoint(int securityParam, double difficulty, BigInteger p, BigInteger q, BigInteger[] seeds, int nextRound) {
+		this.securityParam = securityParam;
+		this.difficulty = difficulty;
+		this.p = p;
+		this.q = q;
+		this.seeds = seeds;
+		this.nextRound = nextRound;
+	}
+	
+	/**
+	 * 
+	 * @param file
+	 * @return the checkpoint saved in file or null if there is none
+	 * @throws IOException if file can not be read or is empty, truncated or corrupt
+	 */
+	public static SweepCheckpoint load(Path file) throws IOException {
+		if(!Files.exists(file)) {
+			return null;
+		}
+		
+		List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+		String[] fields = lines.isEmpty() ? new String[0] : lines.get(0).split(" ");
+		
+		try {
+			if(fields.length != 6 || Integer.parseInt(fields[5]) != lines.size() - 1) {
+				throw new IOException(file + " is empty or truncated, expected a header and " + (fields.length == 6 ? fields[5] : "its") 
+						+ " seeds but got " + lines.size() + " lines.");
+			}
+			
+			BigInteger[] seeds = new BigInteger[lines.size() - 1];
+			
+			for(int i = 0; i < seeds.length; i++) {
+				seeds[i] = new BigInteger(lines.get(i + 1), 16);
+			}
+			
+			return new SweepCheckpoint(Integer.parseInt(fields[0]), Double.parseDouble(fields[1]), new BigInteger(fields[3], 16), 
+					new BigInteger(fields[4], 16), seeds, Integer.parseInt(fields[2]));
+		} catch(NumberFormatException e) {
+			throw new IOException(file + " is not a sweep checkpoint.", e);
+		}
+	}
+	
+	/**
+	 * writes the line "securityParam difficulty nextRound p q seeds" and one seed per line in hexadecimal to a temporary file
+	 * with owner only permissions rw-------, which is synced to the disk and then atomically replaces file
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		FileAttribute<?>[] attributes = temporary.getFileSystem().supportedFileAttributeViews().contains("posix") 
+				? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))} : new FileAttribute<?>[0];
+		
+		Files.deleteIfExists(temporary);
+		
+		try(FileChannel channel = FileChannel.open(temporary, Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), attributes);
+			BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.US_ASCII))) {
+			writer.write(securityParam + " " + difficulty + " " + nextRound + " " + p.toString(16) + " " + q.toString(16) + " " + seeds.length);
+			
+			for(BigInteger seed : seeds) {
+				writer.newLine();
+				writer.write(seed.toString(16));
+			}
+			
+			writer.flush();
+			channel.force(true); // the move must not replace the old checkpoint by one whose content is not on the disk yet
+		}
+		
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * 
+	 * @param securityParam
+	 * @param difficulty
+	 * @return true if the checkpoint belongs to a sweep with these parameters
+	 */
+	public boolean matches(int securityParam, double difficulty) {
+		return this.securityParam == securityParam && this.difficulty == difficulty;
+	}
+	
+	public BigInteger getP() {
+		return p;
+	}
+	
+	public BigInteger getQ() {
+		return q;
+	}
+	
+	public BigInteger[] getSeeds() {
+		return seeds;
+	}
+	
+	public int getNextRound() {
+		return nextRound;
+	}
+	
+	public void setNextRound(int nextRound) {
+		this.nextRound = nextRound;
+	}
+}
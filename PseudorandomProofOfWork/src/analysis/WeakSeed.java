@@ -3,17 +3,18 @@ package analysis;
 import java.math.BigInteger;
 
 public class WeakSeed {
-	private BigInteger seed, modulus, p, q;
+	private BigInteger seed, modulus, p, q, periodLength;
 	private double ratio;
-	private int securityParameter, periodLength;
+	private int securityParameter;
 	
-	public WeakSeed(BigInteger seed, BigInteger modulus, BigInteger p, BigInteger q, int periodLength, double ratio, int securityParameter) {
+	public WeakSeed(BigInteger seed, BigInteger modulus, BigInteger p, BigInteger q, BigInteger periodLength, double ratio, int securityParameter) {
 		this.seed = seed;
 		this.modulus = modulus;
 		this.p = p;
 		this.q = q;
 		this.periodLength = periodLength;
 		this.ratio = ratio;
+		this.securityParameter = securityParameter;
 	}
 	
 	public BigInteger getSeed() {
@@ -32,7 +33,7 @@ public class WeakSeed {
 		return q;
 	}
 	
-	public int getPeriodLength() {
+	public BigInteger getPeriodLength() {
 		return periodLength;
 	}
 	
@@ -0,0 +1,245 @@
+package analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-mapped file of weak seeds with fixed size records. After a header of {@value #HEADER_SIZE} bytes (magic, version,
+ * number width, record count) every record holds the security parameter (int), the ratio (double) and seed, modulus,
+ * p, q and period length as unsigned big-endian numbers of a fixed width. The pages of a mapping are not written back in
+ * order, so every record is forced to the disk before the record count is increased, and neither a crash of the process 
+ * nor of the system exposes a partial record. The file contains the factorizations p and q, so a new store is only 
+ * readable by its owner on POSIX file systems. An in-memory index (modulus, security parameter) -> seed -> record is
+ * built on opening and answers {@link #contains(BigInteger, BigInteger, int)} with two hash lookups.
+ */
+public class WeakSeedStore implements Closeable {
+	private final static int MAGIC = 0x57534453; // "WSDS"
+	private final static int VERSION = 1;
+	private final static int HEADER_SIZE = 32;
+	private final static int COUNT_OFFSET = 16;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int numberBytes, recordSize;
+	private long count;
+	private Map<Key, Map<BigInteger, Long>> index = new ConcurrentHashMap<>();
+	
+	/**
+	 * opens the store in file or creates it
+	 * @param file
+	 * @param numberBits width of the numbers of a new store, the width of an existing store is read from its header
+	 * @throws IOException
+	 */
+	public WeakSeedStore(Path file, int numberBits) throws IOException {
+		FileAttribute<?>[] attributes = file.getFileSystem().supportedFileAttributeViews().contains("posix") 
+				? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))} : new FileAttribute<?>[0];
+		
+		channel = FileChannel.open(file, Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE), attributes);
+		
+		if(channel.size() == 0) {
+			numberBytes = (numberBits + 7) / 8;
+			recordSize = 12 + 5 * numberBytes;
+			map(HEADER_SIZE + Constants.WEAK_SEED_STORE_CAPACITY * (long)recordSize);
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, numberBytes);
+			buffer.putLong(COUNT_OFFSET, 0);
+			buffer.force();
+		}
+		else {
+			map(channel.size());
+			
+			if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+				channel.close();
+				
+				throw new IOException(file + " is not a weak seed store.");
+			}
+			
+			numberBytes = buffer.getInt(8);
+			recordSize = 12 + 5 * numberBytes;
+			count = buffer.getLong(COUNT_OFFSET);
+			
+			for(long i = 0; i < count; i++) {
+				index(get(i), i);
+			}
+		}
+	}
+	
+	/**
+	 * appends weakSeed unless it is already stored
+	 * @param weakSeed
+	 * @return false if the seed was already stored for the modulus and security parameter
+	 */
+	public synchronized boolean add(WeakSeed weakSeed) {
+		if(contains(weakSeed.getSeed(), weakSeed.getModulus(), weakSeed.getSecurityParameter())) {
+			return false;
+		}
+		
+		long position = HEADER_SIZE + count * recordSize;
+		
+		if(position + recordSize > buffer.capacity()) {
+			try {
+				map(HEADER_SIZE + 2 * (buffer.capacity() - HEADER_SIZE));
+			} catch(IOException e) {
+				throw new IllegalStateException("Weak seed store can not grow.", e);
+			}
+		}
+		
+		buffer.putInt((int)position, weakSeed.getSecurityParameter());
+		buffer.putDouble((int)position + 4, weakSeed.getRatio());
+		
+		BigInteger[] numbers = {weakSeed.getSeed(), weakSeed.getModulus(), weakSeed.getP(), weakSeed.getQ(), weakSeed.getPeriodLength()};
+		
+		for(int i = 0; i < numbers.length; i++) {
+			putNumber((int)position + 12 + i * numberBytes, numbers[i]);
+		}
+		
+		buffer.force((int)position, recordSize);
+		buffer.putLong(COUNT_OFFSET, count + 1); // publishes the record
+		index(weakSeed, count++);
+		
+		return true;
+	}
+	
+	/**
+	 * 
+	 * @param seed
+	 * @param modulus
+	 * @param securityParameter
+	 * @return true if seed is stored as weak for modulus and securityParameter
+	 */
+	public boolean contains(BigInteger seed, BigInteger modulus, int securityParameter) {
+		Map<BigInteger, Long> seeds = index.get(new Key(modulus, securityParameter));
+		
+		return seeds != null && seeds.containsKey(seed);
+	}
+	
+	/**
+	 * 
+	 * @param modulus
+	 * @param securityParameter
+	 * @return all weak seeds stored for modulus and securityParameter in the order they were added
+	 */
+	public synchronized List<WeakSeed> find(BigInteger modulus, int securityParameter) {
+		Map<BigInteger, Long> seeds = index.get(new Key(modulus, securityParameter));
+		List<WeakSeed> ret = new ArrayList<>();
+		
+		if(seeds != null) {
+			Long[] records = seeds.values().toArray(new Long[0]);
+			
+			Arrays.sort(records);
+			
+			for(long record : records) {
+				ret.add(get(record));
+			}
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param record 0 <= record < {@link #size()}
+	 * @return the record-th weak seed
+	 */
+	public synchronized WeakSeed get(long record) {
+		if(record < 0 || record >= count) {
+			throw new IndexOutOfBoundsException("Record " + record + " out of bounds for " + count + " records.");
+		}
+		
+		int position = (int)(HEADER_SIZE + record * recordSize);
+		BigInteger[] numbers = new BigInteger[5];
+		
+		for(int i = 0; i < numbers.length; i++) {
+			numbers[i] = getNumber(position + 12 + i * numberBytes);
+		}
+		
+		return new WeakSeed(numbers[0], numbers[1], numbers[2], numbers[3], numbers[4], buffer.getDouble(position + 4), buffer.getInt(position));
+	}
+	
+	public synchronized long size() {
+		return count;
+	}
+	
+	/**
+	 * writes all added records to the file
+	 */
+	public synchronized void force() {
+		buffer.force();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		buffer.force();
+		channel.close();
+	}
+	
+	private void map(long size) throws IOException {
+		if(size > Integer.MAX_VALUE) {
+			throw new IOException("Weak seed stores are limited to " + Integer.MAX_VALUE + " bytes.");
+		}
+		
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+	}
+	
+	private void index(WeakSeed weakSeed, long record) {
+		index.computeIfAbsent(new Key(weakSeed.getModulus(), weakSeed.getSecurityParameter()), key -> new ConcurrentHashMap<>())
+			 .put(weakSeed.getSeed(), record);
+	}
+	
+	private void putNumber(int position, BigInteger number) {
+		byte[] bytes = number.toByteArray();
+		int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0, length = bytes.length - offset; // drop the sign byte
+		
+		if(number.signum() < 0 || length > numberBytes) {
+			throw new IllegalArgumentException(number + " does not fit into " + numberBytes + " unsigned bytes.");
+		}
+		
+		for(int i = 0; i < numberBytes - length; i++) {
+			buffer.put(position + i, (byte)0);
+		}
+		
+		buffer.put(position + numberBytes - length, bytes, offset, length);
+	}
+	
+	private BigInteger getNumber(int position) {
+		byte[] bytes = new byte[numberBytes];
+		
+		buffer.get(position, bytes);
+		
+		return new BigInteger(1, bytes);
+	}
+	
+	private static class Key {
+		private final BigInteger modulus;
+		private final int securityParameter;
+		
+		Key(BigInteger modulus, int securityParameter) {
+			this.modulus = modulus;
+			this.securityParameter = securityParameter;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key)o).securityParameter == securityParameter && ((Key)o).modulus.equals(modulus);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(modulus, securityParameter);
+		}
+	}
+}
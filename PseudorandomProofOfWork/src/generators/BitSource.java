@@ -0,0 +1,53 @@
+package generators;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * source of pseudorandom bits in 64 bit words, so consumers take a word per call instead of a bit per call
+ */
+public interface BitSource {
+	/**
+	 * 
+	 * @param words receives the next 64*count bits, the first bit being the most significant bit of words[0]
+	 * @param count number of words to fill
+	 */
+	public void nextWords(long[] words, int count);
+	
+	/**
+	 * 
+	 * @param generator
+	 * @return the output bits of {@link BlumBlumShub#fillBits(long[], int)}, the lowest bits of the states
+	 */
+	public static BitSource of(BlumBlumShub generator) {
+		return (words, count) -> generator.fillBits(words, Math.multiplyExact(count, Long.SIZE));
+	}
+	
+	/**
+	 * draws the words as bytes, which SecureRandom generates in bulk, instead of one nextLong() per word
+	 * @param generator
+	 * @return the bits of {@link SecureRandom#nextBytes(byte[])} in their order
+	 */
+	public static BitSource of(SecureRandom generator) {
+		return (words, count) -> {
+			byte[] bytes = new byte[Math.multiplyExact(count, Long.BYTES)];
+			
+			generator.nextBytes(bytes);
+			ByteBuffer.wrap(bytes).asLongBuffer().get(words, 0, count); // big endian, the first byte is the most significant
+		};
+	}
+	
+	/**
+	 * e.g. for {@link java.util.SplittableRandom} or any generator of {@link RandomGenerator#of(String)}
+	 * @param generator
+	 * @return the bits of {@link RandomGenerator#nextLong()}
+	 */
+	public static BitSource of(RandomGenerator generator) {
+		return (words, count) -> {
+			for(int i = 0; i < count; i++) {
+				words[i] = generator.nextLong();
+			}
+		};
+	}
+}
@@ -3,6 +3,10 @@ package generators;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
+import math.MontgomeryLong;
+import math.MutableMontgomery;
+import metrics.Metrics;
+import metrics.ReseedEvent;
 
 public class BlumBlumShub extends SecureRandom {
 	/**
@@ -10,52 +14,425 @@ public class BlumBlumShub extends SecureRandom {
 	 */
 	private static final long serialVersionUID = 1L;
 	private PrimesGenerator primesGenerator;
+	private ModulusPool modulusPool; // optional source of precomputed moduli for changeModulus()
 	private MySecureRandom rand;
-	private BigInteger seed, modulus, p, q, current;
+	private BigInteger seed, modulus, p, q, current, 
+					   qInverse; // q^-1 mod p for the chinese remainder theorem
 	private int securityParam;
+	/*
+	 * fast path for moduli below 2^64, the state is kept in Montgomery form in montgomeryCurrent
+	 * and current is only updated on demand by getCurrent()
+	 */
+	private MontgomeryLong montgomery;
+	private long montgomeryCurrent;
+	/*
+	 * the same for all larger moduli, the state is kept in Montgomery form in the preallocated limbs wideCurrent 
+	 * which are squared in place, so no step allocates unless the chinese remainder mode is enabled
+	 */
+	private MutableMontgomery wide;
+	private long[] wideCurrent;
+	/*
+	 * optional chinese remainder mode for larger moduli, the state is kept as residues currentP = x mod p and 
+	 * currentQ = x mod q, which are squared separately and only combined to x on demand
+	 */
+	private boolean chineseRemainder;
+	private BigInteger currentP, currentQ;
+	/*
+	 * output bits taken from the low bits of every state, 1 unless enabled by setBitsPerStep(int),
+	 * bits of the last state that are not consumed yet are buffered in pendingBits
+	 */
+	private int bitsPerStep = 1, pendingCount;
+	private long pendingBits;
 	
 	public BlumBlumShub(int securityParam) {
-		rand = new MySecureRandom();
+		rand = MySecureRandom.current();
+		primesGenerator = new PrimesGenerator(securityParam, rand);
+		this.securityParam = securityParam;
+		
+		changeModulus();
+		generateSeed();
+	}
+	
+	/**
+	 * takes the modulus and all later moduli of {@link #changeModulus()} from modulusPool
+	 * @param securityParam
+	 * @param modulusPool
+	 */
+	public BlumBlumShub(int securityParam, ModulusPool modulusPool) {
+		rand = MySecureRandom.current();
 		primesGenerator = new PrimesGenerator(securityParam, rand);
 		this.securityParam = securityParam;
+		this.modulusPool = modulusPool;
 		
 		changeModulus();
 		generateSeed();
 	}
 	
+	/**
+	 * creates a generator over the known Blum-Number n = pq, e.g. to run several independent states over the same modulus
+	 * @param securityParam
+	 * @param p prime with p = 3 mod 4
+	 * @param q prime with q = 3 mod 4
+	 */
+	public BlumBlumShub(int securityParam, BigInteger p, BigInteger q) {
+		rand = MySecureRandom.current();
+		primesGenerator = new PrimesGenerator(securityParam, rand);
+		this.securityParam = securityParam;
+		
+		setModulus(p.multiply(q), p, q);
+		generateSeed();
+	}
+	
+	/**
+	 * copies the modulus and uses the current state of parent as seed
+	 * @param parent
+	 */
+	private BlumBlumShub(BlumBlumShub parent) {
+		rand = MySecureRandom.current();
+		primesGenerator = new PrimesGenerator(parent.securityParam, rand);
+		securityParam = parent.securityParam;
+		modulusPool = parent.modulusPool;
+		
+		setModulus(parent.modulus, parent.p, parent.q);
+		bitsPerStep = parent.bitsPerStep;
+		seed = parent.getCurrent();
+		setCurrent(seed);
+	}
+	
+	/**
+	 * the lowest bit of the next state like every other output method, so the i-th call returns {@link #bitAt(BigInteger)} of i
+	 */
 	@Override
 	public boolean nextBoolean() {
-		current = current.modPow(BigInteger.TWO, modulus);
-		
-		return current.mod(BigInteger.TWO).compareTo(BigInteger.ONE) == 0 ? false : true;
+		return (step() & 1) != 0;
 	}
 	
 	public byte nextByte() {
-		String bits = "";
+		return (byte)nextBits(Byte.SIZE);
+	}
+	
+	/**
+	 * SecureRandom.next(int) is final and draws its bits from this method, so nextInt(int), nextDouble() etc. 
+	 * use the Blum-Blum-Shub output as well
+	 */
+	@Override
+	public void nextBytes(byte[] bytes) {
+		int i = 0;
+		
+		for(; i + Long.BYTES <= bytes.length; i += Long.BYTES) {
+			long bits = nextBits(Long.SIZE);
+			
+			for(int j = 0; j < Long.BYTES; j++) {
+				bytes[i + j] = (byte)(bits >>> (Long.SIZE - Byte.SIZE * (j + 1)));
+			}
+		}
+		
+		for(; i < bytes.length; i++) {
+			bytes[i] = (byte)nextBits(Byte.SIZE);
+		}
+	}
+	
+	@Override
+	public int nextInt() {
+		return (int)nextBits(Integer.SIZE);
+	}
+	
+	@Override
+	public long nextLong() {
+		return nextBits(Long.SIZE);
+	}
+	
+	/**
+	 * packs the next bitCount output bits into words, the first bit is the most significant bit of words[0],
+	 * a last incomplete word is filled from its most significant bit on and padded with zeroes
+	 * @param words
+	 * @param bitCount
+	 */
+	public void fillBits(long[] words, int bitCount) {
+		int fullWords = bitCount / Long.SIZE, remaining = bitCount % Long.SIZE;
+		
+		if(bitCount < 0 || fullWords + (remaining > 0 ? 1 : 0) > words.length) {
+			throw new IllegalArgumentException(bitCount + " bits do not fit into " + words.length + " words.");
+		}
 		
-		for(int i = 0; i < 8 ; i++) {
-			current = current.modPow(BigInteger.TWO, modulus);
-			bits += current.mod(BigInteger.TWO).compareTo(BigInteger.ZERO) == 0 ? "0" : "1";
+		for(int i = 0; i < fullWords; i++) {
+			words[i] = nextBits(Long.SIZE);
 		}
 		
-		return Byte.valueOf(bits, 2);
+		if(remaining > 0) {
+			words[fullWords] = nextBits(remaining) << (Long.SIZE - remaining);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param count 0 <= count <= 64
+	 * @return the next count output bits in the low bits of the result, the first bit being the most significant one
+	 */
+	private long nextBits(int count) {
+		long ret = 0;
+		
+		if(bitsPerStep == 1) {
+			for(int i = 0; i < count; i++) {
+				ret = (ret << 1) | (step() & 1);
+			}
+			
+			return ret;
+		}
+		
+		while(count > 0) {
+			if(pendingCount == 0) {
+				pendingBits = step();
+				pendingCount = bitsPerStep;
+			}
+			
+			int take = Math.min(count, pendingCount);
+			
+			pendingCount -= take;
+			ret = (ret << take) | ((pendingBits >>> pendingCount) & (-1L >>> (Long.SIZE - take)));
+			count -= take;
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Extracting up to log2(log2(n)) low bits of every state is still provably secure and cuts the number of squarings
+	 * per output bit by that factor. Only the bulk methods nextByte(), nextBytes(byte[]), nextInt(), nextLong() and 
+	 * fillBits(long[], int) are affected, nextBoolean() always consumes one state.
+	 * @param bitsPerStep 1 <= bitsPerStep <= {@link #getMaxBitsPerStep()}
+	 */
+	public void setBitsPerStep(int bitsPerStep) {
+		if(bitsPerStep < 1 || bitsPerStep > getMaxBitsPerStep()) {
+			throw new IllegalArgumentException("Bits per step have to be between 1 and " + getMaxBitsPerStep() + ", got " + bitsPerStep + ".");
+		}
+		
+		this.bitsPerStep = bitsPerStep;
+		pendingCount = 0;
+	}
+	
+	public int getBitsPerStep() {
+		return bitsPerStep;
+	}
+	
+	/**
+	 * 
+	 * @return floor(log2(log2(n))) for the current modulus n, but at least 1
+	 */
+	public int getMaxBitsPerStep() {
+		return Math.max(1, Integer.SIZE - 1 - Integer.numberOfLeadingZeros(modulus.bitLength()));
+	}
+	
+	/**
+	 * squares the state once, without any allocation unless the chinese remainder mode is enabled
+	 * @return the lowest 64 bits of the new state
+	 */
+	private long step() {
+		Metrics.SQUARINGS.increment();
+		
+		if(montgomery != null) {
+			montgomeryCurrent = montgomery.square(montgomeryCurrent);
+			
+			return montgomery.fromMontgomery(montgomeryCurrent);
+		}
+		
+		if(!chineseRemainder) {
+			wide.square(wideCurrent);
+			
+			return wide.lowBits(wideCurrent);
+		}
+		
+		currentP = currentP.multiply(currentP).mod(p);
+		currentQ = currentQ.multiply(currentQ).mod(q);
+		
+		// x = x_q + q*h with h = (x_p - x_q)*q^-1 mod p, so the low 64 bits of x only need the low 64 bits of x_q, q and h
+		return currentQ.longValue() + q.longValue() * currentP.subtract(currentQ).multiply(qInverse).mod(p).longValue();
+	}
+	
+	private void setCurrent(BigInteger current) {
+		this.current = current;
+		
+		if(montgomery != null) {
+			montgomeryCurrent = montgomery.toMontgomery(current.longValue());
+		}
+		else if(chineseRemainder) {
+			currentP = current.mod(p);
+			currentQ = current.mod(q);
+		}
+		else {
+			wide.toMontgomery(current, wideCurrent);
+		}
+	}
+	
+	/**
+	 * 
+	 * @return the current state x_i, the next output bit is taken from x_(i+1) = x_i^2 mod n
+	 */
+	public BigInteger getCurrent() {
+		if(montgomery != null) {
+			current = MontgomeryLong.toBigInteger(montgomery.fromMontgomery(montgomeryCurrent));
+		}
+		else if(chineseRemainder) {
+			current = combine(currentP, currentQ);
+		}
+		else {
+			current = wide.fromMontgomery(wideCurrent);
+		}
+		
+		return current;
+	}
+	
+	/**
+	 * Squares the state as residues mod p and mod q, which are combined to the full state only when it is requested.
+	 * Every output bit still needs the lowest bits of the state, so each step runs one Garner recombination 
+	 * h = (x_p - x_q)*q^-1 mod p besides the two half size squarings, which can not be batched since the bit depends on 
+	 * the whole state. Together with the allocations of every step this makes the mode slower than the default in place 
+	 * Montgomery squaring of {@link MutableMontgomery} (BlumBlumShubBenchmark: about 0.4 times its throughput at 512 bits
+	 * and 0.65 times at 2048 bits), it exists only to compare both paths. The output is identical, moduli below 2^64 always 
+	 * use the Montgomery fast path and ignore this mode.
+	 * @param chineseRemainder
+	 */
+	public void setChineseRemainder(boolean chineseRemainder) {
+		BigInteger state = getCurrent();
+		
+		this.chineseRemainder = chineseRemainder;
+		setCurrent(state);
+	}
+	
+	public boolean isChineseRemainder() {
+		return chineseRemainder;
 	}
 	
 	public void generateSeed() {
+		ReseedEvent event = ReseedEvent.isRecorded() ? new ReseedEvent() : null;
+		
+		if(event != null) {
+			event.begin();
+		}
+		
 		do {
 			seed = rand.nextRand(securityParam).mod(modulus);
-		} while(seed.gcd(modulus).compareTo(BigInteger.ONE) != 0 || seed.gcd(p).compareTo(BigInteger.ONE) != 0 || seed.gcd(q).compareTo(BigInteger.ONE) != 0);
-		// ensure gcd(seed, modulus) = 1 and p,q are not divisors of seed
+		} while(seed.mod(p).signum() == 0 || seed.mod(q).signum() == 0); // ensure gcd(seed, modulus) = 1, cheaper than the gcd itself
+		
+		setCurrent(seed);
+		pendingCount = 0;
+		Metrics.RESEEDS.increment();
 		
-		current = seed;
+		if(event != null && event.shouldCommit()) {
+			event.securityParam = securityParam;
+			event.modulusBitLength = modulus.bitLength();
+			event.commit();
+		}
 	}
 	
+	/**
+	 * restarts the generator with the given seed
+	 * @param seed 0 < seed < n with gcd(seed, n) = 1
+	 */
+	public void setSeed(BigInteger seed) {
+		if(seed.signum() <= 0 || seed.compareTo(modulus) >= 0 || seed.gcd(modulus).compareTo(BigInteger.ONE) != 0) {
+			throw new IllegalArgumentException("Seed " + seed + " is not an element of Z_" + modulus + "^*.");
+		}
+		
+		this.seed = seed;
+		setCurrent(seed);
+		pendingCount = 0;
+		Metrics.RESEEDS.increment();
+	}
+	
+	/**
+	 * replaces the modulus by a new Blum-number, taken from the modulus pool if there is one
+	 */
 	public void changeModulus() {
-		BigInteger[] buf = primesGenerator.getRandomBlumNumber();
+		BigInteger[] buf = modulusPool != null ? modulusPool.take(securityParam) : primesGenerator.getRandomBlumNumber();
+		
+		setModulus(buf[0], buf[1], buf[2]);
+	}
+	
+	private void setModulus(BigInteger modulus, BigInteger p, BigInteger q) {
+		BigInteger state = current != null ? getCurrent() : null;
+		
+		this.modulus = modulus;
+		this.p = p;
+		this.q = q;
+		qInverse = q.modInverse(p);
+		montgomery = MontgomeryLong.fits(modulus) ? new MontgomeryLong(modulus) : null;
+		wide = montgomery == null ? new MutableMontgomery(modulus) : null;
+		wideCurrent = wide != null ? wide.newElement() : null;
+		
+		if(state != null) { // x^2 mod n = (x mod n)^2 mod n, so the next output does not change
+			setCurrent(state.mod(modulus));
+		}
+		
+		bitsPerStep = Math.min(bitsPerStep, getMaxBitsPerStep());
+		pendingCount = 0;
+	}
+	
+	/**
+	 * skips steps squarings in O(log(steps)) multiplications with the factorization of n
+	 * @param steps >= 0
+	 */
+	public void jump(long steps) {
+		setCurrent(stateAfter(getCurrent(), BigInteger.valueOf(steps)));
+		pendingCount = 0;
+	}
+	
+	/**
+	 * 
+	 * @param index >= 0
+	 * @return the state x_index = seed^(2^index) mod n, x_0 being the seed
+	 */
+	public BigInteger stateAt(BigInteger index) {
+		return stateAfter(seed, index);
+	}
+	
+	/**
+	 * random access into the sequence produced from the seed with one bit per step, e.g. to verify single positions
+	 * @param index >= 0
+	 * @return the index-th output bit, which is the lowest bit of x_(index + 1) like the index-th result of {@link #nextBoolean()}
+	 * 			and the index-th bit of {@link #fillBits(long[], int)} after {@link #setSeed(BigInteger)}
+	 */
+	public boolean bitAt(BigInteger index) {
+		return stateAt(index.add(BigInteger.ONE)).testBit(0);
+	}
+	
+	/**
+	 * hands out the next steps states as an independent generator and skips them in this generator, 
+	 * so the substreams do not overlap as long as the child uses at most steps squarings
+	 * @param steps
+	 * @return a generator over the same modulus seeded with the current state
+	 */
+	public BlumBlumShub split(long steps) {
+		BlumBlumShub ret = new BlumBlumShub(this);
 		
-		modulus = buf[0];
-		p = buf[1];
-		q = buf[2];
+		jump(steps);
+		
+		return ret;
+	}
+	
+	/**
+	 * x^(2^steps) mod n is computed mod p and mod q where the exponent 2^steps can be reduced mod p - 1 and mod q - 1
+	 * (Fermat), both residues are combined with {@link #combine(BigInteger, BigInteger)}
+	 * @param x in Z_n^*
+	 * @param steps >= 0
+	 * @return x^(2^steps) mod n
+	 */
+	private BigInteger stateAfter(BigInteger x, BigInteger steps) {
+		BigInteger pMinusOne = p.subtract(BigInteger.ONE), qMinusOne = q.subtract(BigInteger.ONE),
+				   xp = x.mod(p).modPow(BigInteger.TWO.modPow(steps, pMinusOne), p),
+				   xq = x.mod(q).modPow(BigInteger.TWO.modPow(steps, qMinusOne), q);
+		
+		return combine(xp, xq);
+	}
+	
+	/**
+	 * Garner's formula
+	 * @param xp x mod p
+	 * @param xq x mod q
+	 * @return x mod n
+	 */
+	private BigInteger combine(BigInteger xp, BigInteger xq) {
+		return xp.subtract(xq).multiply(qInverse).mod(p).multiply(q).add(xq);
 	}
 	
 	/**
@@ -0,0 +1,116 @@
+package generators;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import math.MontgomeryLong;
+import metrics.Metrics;
+
+/**
+ * Advances independent Blum-Blum-Shub states over one modulus n < 2^62 in lockstep, e.g. to evaluate the seeds of a sweep
+ * in batches. The states are kept in Montgomery form with R = 2^64 in one long[] with one lane per state and every step
+ * squares all lanes in one loop without branches: n < 2^62 keeps the Montgomery sum below 2^63, so the final subtraction
+ * is a mask. The lanes do not depend on each other, so their multiplications overlap in the pipeline instead of waiting
+ * for the previous square like the steps of a single generator do.
+ */
+public class LockstepBlumBlumShub {
+	public final static int MAX_MODULUS_BITS = Long.SIZE - 2;
+	private final BigInteger modulus;
+	private final MontgomeryLong montgomery; // only for the conversions
+	private final long n,
+					   inverse; // -n^-1 mod 2^64
+	private final long[] states;
+	
+	/**
+	 * 
+	 * @param modulus Blum-number n with at most {@value #MAX_MODULUS_BITS} bits
+	 * @param lanes number of states
+	 */
+	public LockstepBlumBlumShub(BigInteger modulus, int lanes) {
+		if(!fits(modulus) || lanes < 1) {
+			throw new IllegalArgumentException("Modulus " + modulus + " has to be odd and smaller than 2^" + MAX_MODULUS_BITS + ", got " + lanes + " lanes.");
+		}
+		
+		long inv = modulus.longValue();
+		
+		for(int i = 0; i < 5; i++) { // Newton iteration like in MontgomeryLong
+			inv *= 2 - modulus.longValue() * inv;
+		}
+		
+		this.modulus = modulus;
+		montgomery = new MontgomeryLong(modulus);
+		n = modulus.longValue();
+		inverse = -inv;
+		states = new long[lanes];
+	}
+	
+	/**
+	 * 
+	 * @param modulus
+	 * @return true if modulus is odd and smaller than 2^{@value #MAX_MODULUS_BITS}
+	 */
+	public static boolean fits(BigInteger modulus) {
+		return modulus.signum() > 0 && modulus.testBit(0) && modulus.bitLength() <= MAX_MODULUS_BITS;
+	}
+	
+	/**
+	 * restarts one lane with the given seed
+	 * @param lane
+	 * @param seed 0 < seed < n with gcd(seed, n) = 1
+	 */
+	public void setSeed(int lane, BigInteger seed) {
+		if(seed.signum() <= 0 || seed.compareTo(modulus) >= 0 || seed.gcd(modulus).compareTo(BigInteger.ONE) != 0) {
+			throw new IllegalArgumentException("Seed " + seed + " is not an element of Z_" + modulus + "^*.");
+		}
+		
+		states[lane] = montgomery.toMontgomery(seed.longValue());
+	}
+	
+	/**
+	 * 
+	 * @param lane
+	 * @return the current state of the lane
+	 */
+	public BigInteger getCurrent(int lane) {
+		return BigInteger.valueOf(montgomery.fromMontgomery(states[lane]));
+	}
+	
+	/**
+	 * squares every lane 64 times, the output bits are the lowest bits of the states like the bits of
+	 * {@link BlumBlumShub#fillBits(long[], int)} with one bit per step
+	 * @param words receives the 64 next output bits of lane i in words[i], the first bit being the most significant one
+	 */
+	public void nextWords(long[] words) {
+		long[] x = states;
+		int lanes = x.length;
+		
+		if(words.length < lanes) {
+			throw new IllegalArgumentException(lanes + " lanes do not fit into " + words.length + " words.");
+		}
+		
+		Arrays.fill(words, 0, lanes, 0);
+		
+		for(int bit = Long.SIZE - 1; bit >= 0; bit--) {
+			for(int i = 0; i < lanes; i++) {
+				long a = x[i], low = a * a, m = low * inverse,
+					 // a < 2^62 so a*a is positive, low + low(m*n) = 0 mod 2^64 carries exactly if low is non zero
+					 sum = Math.multiplyHigh(a, a) + MontgomeryLong.unsignedMultiplyHigh(m, n) + ((low | -low) >>> 63);
+				
+				sum -= n & ~((sum - n) >> 63); // sum < 2n < 2^63, subtracts n if sum >= n
+				x[i] = sum;
+				m = sum * inverse; // the reduction of sum < n is below n, so its lowest bit is the one of the state
+				words[i] |= ((MontgomeryLong.unsignedMultiplyHigh(m, n) + ((sum | -sum) >>> 63)) & 1) << bit;
+			}
+		}
+		
+		Metrics.SQUARINGS.add((long)Long.SIZE * lanes);
+	}
+	
+	public int lanes() {
+		return states.length;
+	}
+	
+	public BigInteger getModulus() {
+		return modulus;
+	}
+}
@@ -0,0 +1,308 @@
+package generators;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Precomputes Blum-numbers (n, p, q) per security parameter on background threads, so {@link BlumBlumShub} can take a
+ * ready modulus in O(1) instead of running {@link PrimesGenerator#getRandomBlumNumber()} on creation or rekeying.
+ * Whenever the depth for a security parameter drops below the low watermark it is refilled up to the high watermark.
+ * The pool is persisted to a file so restarts start warm, note that the file contains the factorizations p and q
+ * and is therefore only readable by its owner on POSIX file systems.
+ */
+public class ModulusPool implements Closeable {
+	private final static System.Logger LOGGER = System.getLogger(ModulusPool.class.getName());
+	private Map<Integer, ArrayDeque<BigInteger[]>> moduli = new HashMap<>(); // security parameter -> (n, p, q), guarded by this
+	private Map<Integer, Integer> inFlight = new HashMap<>(); // security parameter -> moduli being generated, guarded by this
+	private ExecutorService workers, saver;
+	private AtomicBoolean saveScheduled = new AtomicBoolean();
+	private LongAdder generated = new LongAdder();
+	private Path file;
+	private int lowWatermark, highWatermark;
+	private long created = System.nanoTime();
+	
+	/**
+	 * 
+	 * @param file where the pool is persisted, loaded if it exists
+	 * @param lowWatermark a refill starts as soon as less moduli are ready
+	 * @param highWatermark number of moduli a refill generates up to
+	 * @param threads background threads generating moduli
+	 * @throws IOException if the existing file can not be read
+	 */
+	public ModulusPool(Path file, int lowWatermark, int highWatermark, int threads) throws IOException {
+		if(lowWatermark < 0 || highWatermark < Math.max(1, lowWatermark) || threads < 1) {
+			throw new IllegalArgumentException("Invalid watermarks " + lowWatermark + "/" + highWatermark + " or threads " + threads + ".");
+		}
+		
+		this.file = file;
+		this.lowWatermark = lowWatermark;
+		this.highWatermark = highWatermark;
+		workers = Executors.newFixedThreadPool(threads, ModulusPool::daemon);
+		saver = Executors.newSingleThreadExecutor(ModulusPool::daemon);
+		
+		if(file != null && Files.exists(file)) {
+			load();
+		}
+	}
+	
+	/**
+	 * starts filling the pool for securityParam up to the high watermark
+	 * @param securityParam
+	 */
+	public synchronized void prefill(int securityParam) {
+		refill(securityParam, highWatermark);
+	}
+	
+	/**
+	 * 
+	 * @param securityParam
+	 * @return a Blum-number n on index 0, p on index 1 and q on index 2, taken from the pool or generated synchronously
+	 * 			if the pool is empty, every modulus is handed out only once in this process. The removal from the file is
+	 * 			saved on the saver thread, so a pooled modulus taken shortly before a crash can be handed out again after
+	 * 			the restart, call {@link #flush()} after take if that is not acceptable.
+	 */
+	public BigInteger[] take(int securityParam) {
+		BigInteger[] ret;
+		
+		synchronized(this) {
+			ret = moduli.computeIfAbsent(securityParam, key -> new ArrayDeque<>()).pollFirst();
+			
+			if(depth(securityParam) < lowWatermark) {
+				refill(securityParam, highWatermark);
+			}
+		}
+		
+		if(ret == null) {
+			return generate(securityParam);
+		}
+		
+		scheduleSave();
+		
+		return ret;
+	}
+	
+	/**
+	 * writes the pool to its file and waits for it, so all moduli taken before are removed from the file
+	 * @throws IOException if the file could not be written
+	 */
+	public void flush() throws IOException {
+		if(saver.isShutdown()) {
+			return; // close() saved the pool
+		}
+		
+		try {
+			saver.submit(() -> {
+				save();
+				
+				return null;
+			}).get();
+		} catch(RejectedExecutionException e) { // closed concurrently, close() saves the pool
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			
+			throw new IOException("Interrupted while saving the modulus pool to " + file + ".", e);
+		} catch(ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * 
+	 * @param securityParam
+	 * @return number of moduli ready for securityParam
+	 */
+	public synchronized int depth(int securityParam) {
+		ArrayDeque<BigInteger[]> ready = moduli.get(securityParam);
+		
+		return ready == null ? 0 : ready.size();
+	}
+	
+	/**
+	 * 
+	 * @return moduli generated in the background per second since the pool was created
+	 */
+	public double refillRate() {
+		return generated.sum() / ((System.nanoTime() - created) / 1e9);
+	}
+	
+	/**
+	 * 
+	 * @return moduli generated in the background since the pool was created
+	 */
+	public long getGenerated() {
+		return generated.sum();
+	}
+	
+	/**
+	 * stops the background generation, waits for a pending save and writes the pool to its file
+	 */
+	@Override
+	public void close() throws IOException {
+		workers.shutdownNow();
+		saver.shutdown(); // an interrupted save would leave its temporary file behind
+		
+		try {
+			saver.awaitTermination(1, TimeUnit.MINUTES);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		save();
+	}
+	
+	/**
+	 * submits one generation task per missing modulus, so all threads can work on the same security parameter
+	 * @param securityParam
+	 * @param target depth to reach
+	 */
+	private void refill(int securityParam, int target) {
+		int missing = target - depth(securityParam) - inFlight.getOrDefault(securityParam, 0);
+		
+		for(int i = 0; i < missing && !workers.isShutdown(); i++) {
+			inFlight.merge(securityParam, 1, Integer::sum);
+			workers.execute(() -> {
+				BigInteger[] modulus = null;
+				
+				try {
+					modulus = generate(securityParam);
+				} catch(IllegalStateException e) {
+					if(!workers.isShutdown()) {
+						throw e;
+					}
+					
+					return; // interrupted by close(), not an error
+				} finally {
+					synchronized(this) {
+						inFlight.merge(securityParam, -1, Integer::sum);
+						
+						if(modulus != null) {
+							moduli.computeIfAbsent(securityParam, key -> new ArrayDeque<>()).addLast(modulus);
+							generated.increment();
+						}
+					}
+				}
+				
+				if(modulus != null) {
+					scheduleSave();
+				}
+			});
+		}
+	}
+	
+	/**
+	 * 
+	 * @param securityParam
+	 * @return a new Blum-number, generated on the calling thread
+	 */
+	private BigInteger[] generate(int securityParam) {
+		return new PrimesGenerator(securityParam, MySecureRandom.current(), 1).getRandomBlumNumber();
+	}
+	
+	/**
+	 * saves the pool on the saver thread, saves requested while one is pending are merged into it
+	 */
+	private void scheduleSave() {
+		if(file != null && saveScheduled.compareAndSet(false, true) && !saver.isShutdown()) {
+			try {
+				saver.execute(() -> {
+					saveScheduled.set(false);
+					
+					try {
+						save();
+					} catch (IOException e) { // the moduli stay in memory, the next save or close() writes them again
+						LOGGER.log(Level.WARNING, "Could not save the modulus pool to " + file + ".", e);
+					}
+				});
+			} catch(RejectedExecutionException e) { // closed concurrently, close() saves the pool
+			}
+		}
+	}
+	
+	/**
+	 * writes one line "securityParam n p q" with hexadecimal numbers per modulus to a temporary file which
+	 * then atomically replaces the pool file, the temporary file is created with owner only permissions rw-------
+	 */
+	private void save() throws IOException {
+		if(file == null) {
+			return;
+		}
+		
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		
+		synchronized(saver) { // the saver thread and close() must not write the temporary file at the same time
+			Files.deleteIfExists(temporary);
+			
+			if(temporary.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+				Files.createFile(temporary, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+			}
+			else {
+				Files.createFile(temporary);
+			}
+			
+			try(BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.US_ASCII, StandardOpenOption.WRITE)) {
+				synchronized(this) {
+					for(Map.Entry<Integer, ArrayDeque<BigInteger[]>> e : moduli.entrySet()) {
+						for(BigInteger[] modulus : e.getValue()) {
+							writer.write(e.getKey() + " " + modulus[0].toString(16) + " " + modulus[1].toString(16) + " " + modulus[2].toString(16));
+							writer.newLine();
+						}
+					}
+				}
+			}
+			
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+	
+	/**
+	 * reads the pool file, corrupt lines are logged and skipped
+	 */
+	private void load() throws IOException {
+		for(String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+			String[] fields = line.trim().split(" ");
+			
+			if(line.isBlank()) {
+				continue;
+			}
+			
+			try {
+				if(fields.length != 4) {
+					throw new NumberFormatException("Expected 4 fields but got " + fields.length + ".");
+				}
+				
+				BigInteger[] modulus = {new BigInteger(fields[1], 16), new BigInteger(fields[2], 16), new BigInteger(fields[3], 16)};
+				
+				moduli.computeIfAbsent(Integer.parseInt(fields[0]), key -> new ArrayDeque<>()).addLast(modulus);
+			} catch(NumberFormatException e) {
+				LOGGER.log(Level.WARNING, "Skipped the corrupt line \"" + line + "\" in " + file + ".", e);
+			}
+		}
+	}
+	
+	private static Thread daemon(Runnable runnable) {
+		Thread ret = new Thread(runnable, "modulus-pool");
+		
+		ret.setDaemon(true);
+		
+		return ret;
+	}
+}
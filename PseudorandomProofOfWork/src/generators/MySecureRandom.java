@@ -3,12 +3,29 @@ package generators;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
+import analysis.Constants;
+
 public class MySecureRandom extends SecureRandom {
 
 	/**
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
+	private static final ThreadLocal<MySecureRandom> CURRENT = ThreadLocal.withInitial(MySecureRandom::new);
+	/*
+	 * random bytes are fetched from the underlying SecureRandom in blocks of Constants.ENTROPY_BUFFER_BYTES,
+	 * buffer[position..] are not handed out yet, guarded by this
+	 */
+	private byte[] buffer = new byte[Constants.ENTROPY_BUFFER_BYTES];
+	private int position = buffer.length;
+	
+	/**
+	 * 
+	 * @return the instance of the current thread, so threads generating seeds in parallel do not contend on one lock
+	 */
+	public static MySecureRandom current() {
+		return CURRENT.get();
+	}
 	
 	/**
 	 * 
@@ -16,13 +33,38 @@ public class MySecureRandom extends SecureRandom {
 	 * @return a random number with bitLength bits
 	 */
 	public BigInteger nextRand(int bitLength) {
-		String bits = "";
+		byte[] bytes = new byte[(bitLength + 7) / 8];
 		
-		for(int i = 0; i < bitLength; i++) {
-			bits += nextBoolean() ? "1" : "0"; 
+		nextBytes(bytes);
+		
+		if(bytes.length > 0) {
+			bytes[0] &= 0xff >>> (8 * bytes.length - bitLength); // clear the surplus high bits of the leading byte
 		}
 		
-		return new BigInteger(bits, 2);
+		return new BigInteger(1, bytes);
+	}
+	
+	/**
+	 * serves bytes from the buffer, requests of at least the buffer size bypass it
+	 */
+	@Override
+	public synchronized void nextBytes(byte[] bytes) {
+		if(bytes.length >= buffer.length) {
+			super.nextBytes(bytes);
+			
+			return;
+		}
+		
+		int copied = Math.min(bytes.length, buffer.length - position);
+		
+		System.arraycopy(buffer, position, bytes, 0, copied);
+		position += copied;
+		
+		if(copied < bytes.length) {
+			super.nextBytes(buffer);
+			position = bytes.length - copied;
+			System.arraycopy(buffer, 0, bytes, copied, position);
+		}
 	}
 
 }
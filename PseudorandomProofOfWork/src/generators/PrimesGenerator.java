@@ -1,34 +1,51 @@
 package generators;
 
 import java.math.BigInteger;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import analysis.Constants;
+import math.Factorization;
+import math.MillerRabin;
+import metrics.Metrics;
+import metrics.ModulusGenerationEvent;
 
 public class PrimesGenerator {
+	private final static ExecutorService POOL = Executors.newCachedThreadPool(PrimesGenerator::daemon); // shared by all generators, idle threads end after a minute
 	private BigInteger prime;
 	private Random rand;
-	private int bitLength, maxMillerRabinBase, 
+	private int bitLength, 
 	 			/*
 	 			 *  determines the difference in bitLength for p and q, to ensure 2 < p/q <= Constants.MAX_BLUM_BLUM_SHUB_PQ_RATIO
 	 			 *  for Blum-Number n = pq with p = 3 mod 4 and q = 3 mod 4 and p,q prime
 	 			 */
 				maxPQRatioBitOffset = (int)Math.ceil(Math.log(Constants.MAX_BLUM_BLUM_SHUB_PQ_RATIO)/(2 * Math.log(2)));
-	private boolean firstPrime = true;
+	private int parallelism;
 	
 	public PrimesGenerator(int bitLength, Random rand) {
+		this(bitLength, rand, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * 
+	 * @param bitLength
+	 * @param rand has to be thread safe if parallelism > 1
+	 * @param parallelism number of pairs {@link #getRandomBlumNumber()} generates at the same time
+	 */
+	public PrimesGenerator(int bitLength, Random rand, int parallelism) {
+		setParallelism(parallelism);
 		this.bitLength = bitLength;
 		this.rand = rand;
-		this.prime = BigInteger.TWO.pow(bitLength);
-		maxMillerRabinBase = Constants.MAX_MILLER_RABIN_BASE;
-		
-		// Miller-Rabin-Base a must be from range 2 <= a < n - 1, if n is tested for primality 
-		// and prime is before getNextPrime() call 2^bitLength = n - 1
-		if(prime.compareTo(new BigInteger(String.valueOf(maxMillerRabinBase))) <= 0) {
-			maxMillerRabinBase = prime.subtract(BigInteger.ONE).intValue();
-		}
+		this.prime = BigInteger.TWO.pow(bitLength); // before the first getNextPrime() call
 	}
 	
 	/**
@@ -60,215 +77,257 @@ public class PrimesGenerator {
 	 * @param congruentTo
 	 * @param modulus
 	 * @return a random prime number p with {@link bitLength} bits and p = congruentTo mod modulus and p = 2q + 1 with q prime
+	 * 			or null if the thread is interrupted
 	 */
 	public BigInteger randomStrongPrime(BigInteger congruentTo, BigInteger modulus) {
 		return randomStrongPrime(congruentTo, modulus, bitLength);
 	}
 	
+	/**
+	 * Walks the odd candidates q = start + 2k from a random start with bitLength bits. A combined sieve over small primes r
+	 * removes every k with r | q or r | 2q + 1 first, so Miller-Rabin only runs on candidates where neither q nor 2q + 1 has
+	 * a small factor. 2q + 1 = 3 mod 4 holds for every odd q.
+	 */
 	private BigInteger randomStrongPrime(BigInteger congruentTo, BigInteger modulus, int bitLength) {
 		if(congruentTo.compareTo(modulus) >= 0) {
 			return null;
 		}
 		
-		BigInteger ret;
+		int[] sievePrimes = sievePrimes(bitLength);
+		boolean[] composite = new boolean[Constants.STRONG_PRIME_SIEVE_WINDOW];
+		BigInteger start, q, ret, three = BigInteger.valueOf(3);
+		long startTime = Metrics.start();
 		
-		do {
-			ret = BigInteger.probablePrime(bitLength, rand);
-			ret = ret.multiply(BigInteger.TWO).add(BigInteger.ONE);
-		} while(ret.mod(modulus).compareTo(congruentTo) != 0 || !ret.isProbablePrime(Constants.BIG_INTEGER_CERTANITY));
+		while(true) {
+			start = new BigInteger(bitLength, rand).setBit(bitLength - 1).setBit(0);
+			Arrays.fill(composite, false);
+			
+			for(int r : sievePrimes) {
+				long residue = start.mod(BigInteger.valueOf(r)).longValue(), inverseTwo = (r + 1) / 2, inverseFour = inverseTwo * inverseTwo % r;
+				
+				// q = start + 2k = 0 mod r <=> k = -start/2 mod r and 2q + 1 = 2start + 1 + 4k = 0 mod r <=> k = -(2start + 1)/4 mod r
+				markMultiples(composite, (r - residue) * inverseTwo % r, r);
+				markMultiples(composite, (r - (2 * residue + 1) % r) * inverseFour % r, r);
+			}
+			
+			for(int k = 0; k < composite.length; k++) {
+				if(Thread.currentThread().isInterrupted()) { // cancelled by getRandomBlumNumber()
+					return null;
+				}
+				
+				if(composite[k]) {
+					continue;
+				}
+				
+				q = start.add(BigInteger.valueOf(2L * k));
+				
+				if(q.bitLength() > bitLength) { // walked out of the bit length, restart at a new random position
+					break;
+				}
+				
+				ret = q.shiftLeft(1).add(BigInteger.ONE);
+				Metrics.STRONG_PRIME_CANDIDATES.increment();
+				
+				// Fermat tests to base 2 reject nearly all composites before the expensive Miller-Rabin rounds on q,
+				// for prime q Pocklington's criterion proves 2q + 1 prime if 2^(2q) = 1 mod 2q + 1 and gcd(2^2 - 1, 2q + 1) = 1
+				if(ret.mod(modulus).compareTo(congruentTo) != 0 || ret.mod(three).signum() == 0
+						|| BigInteger.TWO.modPow(q.subtract(BigInteger.ONE), q).compareTo(BigInteger.ONE) != 0
+						|| BigInteger.TWO.modPow(q.shiftLeft(1), ret).compareTo(BigInteger.ONE) != 0
+						|| !q.isProbablePrime(Constants.BIG_INTEGER_CERTANITY)) {
+					Metrics.STRONG_PRIME_REJECTIONS.increment();
+					
+					continue;
+				}
+				
+				Metrics.STRONG_PRIME_LATENCY.recordSince(startTime);
+				
+				return ret;
+			}
+		}
+	}
+	
+	/**
+	 * 
+	 * @param bitLength of the candidates q
+	 * @return the odd sieve primes r < 2^(bitLength - 1), smaller than every candidate, so no prime q is sieved out by itself
+	 */
+	private static int[] sievePrimes(int bitLength) {
+		int count = 0;
 		
-		return ret;
+		while(count + 1 < Factorization.SMALL_PRIMES.length && count < Constants.STRONG_PRIME_SIEVE_PRIMES
+				&& (bitLength > 32 || Factorization.SMALL_PRIMES[count + 1] < 1L << (bitLength - 1))) {
+			count++;
+		}
+		
+		return Arrays.copyOfRange(Factorization.SMALL_PRIMES, 1, count + 1); // skip 2, all candidates are odd
+	}
+	
+	private static void markMultiples(boolean[] composite, long first, int step) {
+		for(long i = first; i < composite.length; i += step) {
+			composite[(int)i] = true;
+		}
 	}
 	
 	/**
-	 * Will create {@link Constants.BLUM_NUMBER_PQ_ROUNDS} pairs of random (p,q), which are both strong primes and will
-	 * pick the pair with the smallest value of gcd((p - 3)/2, (q - 3)/2));
+	 * Will create up to {@link Constants.BLUM_NUMBER_PQ_ROUNDS} pairs of random (p,q), which are both strong primes and will
+	 * pick the pair with the smallest value of gcd((p - 3)/2, (q - 3)/2)). Up to {@link #parallelism} pairs are generated
+	 * concurrently on a thread pool shared by all generators and evaluated as they arrive, all outstanding work is
+	 * cancelled as soon as a pair with the smallest possible gcd is found.
 	 * 
 	 * @return a Blum-number n=pq with bitLength or bitLength + 1 bits on index 0,
 	 * p = 3 mod 4 and p prime on index 1 and q = 3 mod 4 and q prime on index 2
 	 */
 	public BigInteger[] getRandomBlumNumber() {
-		LinkedList<BigInteger[]> pairs = new LinkedList<>();
-		Iterator<BigInteger[]> it;
-		BigInteger[] ret = new BigInteger[3], buf = null;
-		BigInteger p, q, congruentTo = new BigInteger("3"), modulus = new BigInteger("4"), smallestGcd = null, gcd;
+		CompletionService<BigInteger[]> pairs = new ExecutorCompletionService<>(POOL);
+		List<Future<BigInteger[]>> submitted = new ArrayList<>();
+		BigInteger[] ret = new BigInteger[3], buf;
+		BigInteger congruentTo = new BigInteger("3"), modulus = new BigInteger("4"), smallestGcd = null, gcd;
 		// if p has at most 10 Bits more than q: p/q <= 2^10 = 1024 
-		int bitLength = this.bitLength/2, offset = (rand.nextInt() % maxPQRatioBitOffset) + 1; //bitLengthP, bitLengthQ;
+		int bitLength = this.bitLength/2, offset = rand.nextInt(maxPQRatioBitOffset) + 1, bitLengthP, bitLengthQ, pairsEvaluated = 0;
+		ModulusGenerationEvent event = new ModulusGenerationEvent();
+		long startTime = Metrics.start();
 		
 		if(bitLength - offset < 2) {
 			bitLength = 2 + offset;
 		}
 		
-		for(int i = 0; i < Constants.BLUM_NUMBER_PQ_ROUNDS; i++) {
-			p = randomStrongPrime(congruentTo, modulus, bitLength + offset);
-			q = randomStrongPrime(congruentTo, modulus, bitLength - offset);
+		bitLengthP = bitLength + offset;
+		bitLengthQ = bitLength - offset;
+		Callable<BigInteger[]> generatePair = () -> {
+			long pairStart = Metrics.start();
+			BigInteger[] pair = {randomStrongPrime(congruentTo, modulus, bitLengthP), randomStrongPrime(congruentTo, modulus, bitLengthQ)};
 			
-			buf = new BigInteger[2];
-			buf[0] = p;
-			buf[1] = q;
-			pairs.add(buf);
-		}
-		
-		buf = null;
-		it = pairs.iterator();
+			Metrics.BLUM_NUMBER_PAIR_LATENCY.recordSince(pairStart);
+			
+			return pair;
+		};
 		
-		while(it.hasNext()) {
-			buf = it.next();
+		event.begin();
 		
-			if(smallestGcd == null) {
-				smallestGcd = buf[0].subtract(congruentTo).divide(BigInteger.TWO).gcd(buf[1].subtract(congruentTo).divide(BigInteger.TWO)); // gcd((p - 3)/2, (q - 3)/2))
-				ret[1] = buf[0];
-				ret[2] = buf[1];
+		try {
+			while(submitted.size() < Math.min(parallelism, Constants.BLUM_NUMBER_PQ_ROUNDS)) {
+				submitted.add(pairs.submit(generatePair));
 			}
-			else if((gcd = buf[0].subtract(congruentTo).divide(BigInteger.TWO).gcd(buf[1].subtract(congruentTo).divide(BigInteger.TWO))).compareTo(smallestGcd) == -1) { // smaller gcd found
-				ret[1] = buf[0];
-				ret[2] = buf[1];
+			
+			for(int i = 0; i < Constants.BLUM_NUMBER_PQ_ROUNDS; i++) {
+				buf = pairs.take().get();
+				pairsEvaluated++;
 				
-				if(gcd.compareTo(BigInteger.ONE) == 0) { // better gcd than one not possible
-					ret[0] = buf[0].multiply(buf[1]);
-					
-					return ret;
+				if(submitted.size() < Constants.BLUM_NUMBER_PQ_ROUNDS) { // keeps parallelism pairs in progress
+					submitted.add(pairs.submit(generatePair));
 				}
 				
-				smallestGcd = gcd;
+				Metrics.BLUM_NUMBER_PAIRS.increment();
+				gcd = buf[0].subtract(congruentTo).divide(BigInteger.TWO).gcd(buf[1].subtract(congruentTo).divide(BigInteger.TWO)); // gcd((p - 3)/2, (q - 3)/2))
+				
+				if(smallestGcd == null || gcd.compareTo(smallestGcd) < 0) { // smaller gcd found
+					smallestGcd = gcd;
+					ret[1] = buf[0];
+					ret[2] = buf[1];
+					
+					// (p - 3)/2 = p' - 1 and (q - 3)/2 = q' - 1 for p = 2p' + 1 and q = 2q' + 1 are both even, 
+					// so a better gcd than two is not possible
+					if(gcd.compareTo(BigInteger.TWO) <= 0) {
+						break;
+					}
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			
+			if(ret[1] == null) {
+				throw new IllegalStateException("Interrupted before any Blum-number was found.", e);
+			}
+		} catch(ExecutionException e) {
+			throw new IllegalStateException("Strong prime generation failed.", e.getCause());
+		} finally {
+			for(Future<BigInteger[]> future : submitted) { // cancels queued pairs and interrupts the running ones
+				future.cancel(true);
 			}
 		}
 		
-		ret[0] = buf[0].multiply(buf[1]);
-		ret[1] = buf[0];
-		ret[2] = buf[1];
+		ret[0] = ret[1].multiply(ret[2]);
+		Metrics.BLUM_NUMBER_LATENCY.recordSince(startTime);
+		
+		if(event.shouldCommit()) {
+			event.bitLength = this.bitLength;
+			event.pairs = pairsEvaluated;
+			event.gcd = smallestGcd.toString();
+			event.commit();
+		}
 		
 		return ret;
 	}
 	
+	public int getParallelism() {
+		return parallelism;
+	}
+	
 	/**
 	 * 
-	 * @return next prime number p with p > 2^bitLength
+	 * @param parallelism number of pairs {@link #getRandomBlumNumber()} generates at the same time
 	 */
-	public BigInteger getNextPrime() {
-		if(firstPrime) {
-			// 2^bitLength + 1
-			prime.add(BigInteger.ONE);
-			firstPrime = false;
-		}	
-		else {
-			// try next prime + 2
-			prime.add(BigInteger.TWO);
-		}
-		
-		while(!millerRabinTest(prime)) {
-			prime = prime.add(BigInteger.TWO);
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism has to be positive, got " + parallelism + ".");
 		}
 		
-		return prime;
+		this.parallelism = parallelism;
 	}
 	
 	/**
 	 * 
-	 * @param congruentTo
-	 * @return the next prime number p: p == congruentTo mod modulus and p > 2^bitLength
+	 * @return next prime number p with p > 2^bitLength, every call returns the prime following the last one
 	 */
-	public BigInteger getNextPrime(BigInteger congruentTo, BigInteger modulus) {
-		if(prime == null) {
-			prime = new BigInteger("2");
-			prime = prime.pow(bitLength);
-			prime.add(BigInteger.ONE);
-		}
-		else {
-			prime.add(BigInteger.TWO); 
-		}
+	public BigInteger getNextPrime() {
+		BigInteger start = prime.add(BigInteger.ONE);
 		
-		while(prime.mod(modulus).compareTo(congruentTo) != 0 || !millerRabinTest(prime)) {
-			prime = prime.add(BigInteger.TWO); // increment in steps of two, because even numbers can't be prime
+		if(start.compareTo(BigInteger.TWO) == 0) {
+			return prime = start;
 		}
 		
-		return prime;
+		return prime = MillerRabin.nextProbablePrime(start.setBit(0), BigInteger.TWO, Constants.MILLER_RABIN_ROUNDS, rand);
 	}
 	
 	/**
 	 * 
 	 * @param congruentTo
 	 * @param modulus
-	 * @return the next prime number p: p == congruentTo mod modulus and p > 2^bitLength
-	 */
-	public BigInteger getNextPrime(int congruentTo, int modulus) {
-		return getNextPrime(new BigInteger(String.valueOf(congruentTo)), new BigInteger(String.valueOf(modulus)));
-	}
-	
-	/**
-	 * 
-	 * @param testForPrimality
-	 * @return true if
+	 * @return the next prime number p: p == congruentTo mod modulus and p > 2^bitLength, every call returns the prime
+	 * 			following the last one
 	 */
-	private boolean millerRabinTest(BigInteger testForPrimality) {
-		BigInteger[] factor = factor(testForPrimality); 
-		BigInteger base = new BigInteger(String.valueOf(nextBase())), d = factor[1];
-		int e = factor[0].intValue();
-		
-		for(int i = 0; i < Constants.MILLER_RABIN_ROUNDS; i++) {
-			if(base.modPow(d, testForPrimality).compareTo(BigInteger.ONE) != 0 && !secondCondition(base, e, d, testForPrimality)) {
-				return false;
-			}
-			
-			base = new BigInteger(String.valueOf(nextBase()));
-		}
-		
-		return true;
-	}
-	
-	/**
-	 * factors n - 1 = (2^e)*d
-	 * @param n
-	 * @return e and d with d odd with e at index 0 and d at index 1
-	 */
-	private BigInteger[] factor(BigInteger n) {
-		if(n.mod(BigInteger.TWO).compareTo(BigInteger.ZERO) == 0) { // testForPrimality is even number
-			return null;
+	public BigInteger getNextPrime(BigInteger congruentTo, BigInteger modulus) {
+		if(modulus.signum() <= 0 || congruentTo.signum() < 0 || congruentTo.compareTo(modulus) >= 0
+				|| congruentTo.gcd(modulus).compareTo(BigInteger.ONE) != 0) {
+			throw new IllegalArgumentException("There are no primes p > 2^" + bitLength + " with p = " + congruentTo + " mod " + modulus + ".");
 		}
 		
-		BigInteger factor = n.subtract(BigInteger.ONE),
-				divide = n.subtract(BigInteger.ONE);
-		BigInteger[] division, ret = new BigInteger[2];
-		
-		int e = 0;
+		BigInteger start = prime.add(BigInteger.ONE), 
+				   step = modulus.testBit(0) ? modulus.shiftLeft(1) : modulus; // only odd candidates
 		
-		do {
-			division = divide.divideAndRemainder(divide);
-			divide = division[0];
-			e++;
-		} while(division[1].compareTo(BigInteger.ZERO) != 0);
+		start = start.add(congruentTo.subtract(start).mod(modulus));
 		
-		ret[0] = new BigInteger(String.valueOf(e));
-		ret[1] = factor.divide(BigInteger.TWO.pow(e));
+		if(!start.testBit(0)) {
+			start = start.add(modulus);
+		}
 		
-		return ret;
+		return prime = MillerRabin.nextProbablePrime(start, step, Constants.MILLER_RABIN_ROUNDS, rand);
 	}
 	
 	/**
-	 * @param base
-	 * @param d
-	 * @param e
-	 * @param n
-	 * @return if exists 0 <= i < e: base^(d * 2^i) == -1 mod n true, else false
+	 * 
+	 * @param congruentTo
+	 * @param modulus
+	 * @return the next prime number p: p == congruentTo mod modulus and p > 2^bitLength
 	 */
-	private boolean secondCondition(BigInteger base, int e, BigInteger d, BigInteger n) {
-		BigInteger congruentTo = new BigInteger("-1").mod(n);
-		
-		for(int i = 0; i < e; i++) {
-			if(base.modPow(d.multiply(BigInteger.TWO.pow(i)), n).compareTo(congruentTo) == 0) {
-				return true;
-			}
-		}
-		
-		return false;
+	public BigInteger getNextPrime(int congruentTo, int modulus) {
+		return getNextPrime(BigInteger.valueOf(congruentTo), BigInteger.valueOf(modulus));
 	}
 	
-	private int nextBase() {
-		int ret = rand.nextInt(maxMillerRabinBase);
+	private static Thread daemon(Runnable runnable) {
+		Thread ret = new Thread(runnable, "primes-generator");
 		
-		while(ret <= 2) {
-			ret = rand.nextInt(maxMillerRabinBase);
-		}
+		ret.setDaemon(true);
 		
 		return ret;
 	}
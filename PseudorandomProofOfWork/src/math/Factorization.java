@@ -0,0 +1,268 @@
+package math;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class Factorization {
+	public final static int SMALL_PRIMES_LIMIT = 1 << 16; // trial division bound, every cofactor below SMALL_PRIMES_LIMIT^2 is prime
+	public final static int[] SMALL_PRIMES = sieve(SMALL_PRIMES_LIMIT);
+	private final static int CERTAINTY = 128;
+	private final static int BRENT_BATCH = 128; // number of products accumulated per gcd in Pollard-Brent
+	/*
+	 * squarings Pollard-Brent may spend on one cofactor, it needs about sqrt(r) of them to split off the prime r,
+	 * so every factorization whose second largest prime is below about 2^36 succeeds
+	 */
+	public final static long MAX_BRENT_ITERATIONS = 1L << 18;
+	private final static BigInteger SQUARED_LIMIT = BigInteger.valueOf(SMALL_PRIMES_LIMIT).pow(2);
+	/*
+	 * products of consecutive small primes that fit into a long, so trial division needs only one BigInteger
+	 * remainder per product and the single primes are checked on primitive longs
+	 */
+	private final static long[] PRIME_PRODUCTS;
+	private final static int[] PRIME_PRODUCT_OFFSETS;
+	
+	static {
+		long[] products = new long[SMALL_PRIMES.length];
+		int[] offsets = new int[SMALL_PRIMES.length + 1];
+		int count = 0, i = 0;
+		
+		while(i < SMALL_PRIMES.length) {
+			long product = 1;
+			
+			offsets[count] = i;
+			
+			while(i < SMALL_PRIMES.length && product <= Long.MAX_VALUE / SMALL_PRIMES[i]) {
+				product *= SMALL_PRIMES[i++];
+			}
+			
+			products[count++] = product;
+		}
+		
+		offsets[count] = i;
+		
+		PRIME_PRODUCTS = new long[count];
+		PRIME_PRODUCT_OFFSETS = new int[count + 1];
+		System.arraycopy(products, 0, PRIME_PRODUCTS, 0, count);
+		System.arraycopy(offsets, 0, PRIME_PRODUCT_OFFSETS, 0, count + 1);
+	}
+	
+	/**
+	 *
+	 * @param limit
+	 * @return all primes p < limit in ascending order (sieve of Eratosthenes)
+	 */
+	public static int[] sieve(int limit) {
+		boolean[] composite = new boolean[limit];
+		int[] buf = new int[limit], ret;
+		int count = 0;
+		
+		for(int i = 2; i < limit; i++) {
+			if(!composite[i]) {
+				buf[count++] = i;
+				
+				for(long j = (long)i * i; j < limit; j += i) {
+					composite[(int)j] = true;
+				}
+			}
+		}
+		
+		ret = new int[count];
+		System.arraycopy(buf, 0, ret, 0, count);
+		
+		return ret;
+	}
+	
+	/**
+	 * factors n by trial division with {@link #SMALL_PRIMES} and Pollard-Brent for the remaining cofactor
+	 * @param n > 0
+	 * @return the prime factorization of n as prime -> exponent in ascending order of the primes
+	 * @throws ArithmeticException if a cofactor does not split within {@value #MAX_BRENT_ITERATIONS} iterations
+	 */
+	public static SortedMap<BigInteger, Integer> factor(BigInteger n) {
+		return factor(n, MAX_BRENT_ITERATIONS);
+	}
+	
+	/**
+	 * 
+	 * @param n > 0
+	 * @param maxIterations squarings Pollard-Brent may spend per cofactor
+	 * @return the prime factorization of n as prime -> exponent in ascending order of the primes
+	 * @throws ArithmeticException if a cofactor does not split within maxIterations iterations
+	 */
+	public static SortedMap<BigInteger, Integer> factor(BigInteger n, long maxIterations) {
+		if(n.signum() <= 0) {
+			throw new IllegalArgumentException("Only positive numbers can be factored, got " + n + ".");
+		}
+		
+		SortedMap<BigInteger, Integer> ret = new TreeMap<>();
+		BigInteger remaining = trialDivision(n, ret);
+		
+		if(remaining.compareTo(BigInteger.ONE) != 0) {
+			factorCofactor(remaining, ret, maxIterations);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 *
+	 * @param a
+	 * @param b
+	 * @return factorization of lcm(a, b), that is the maximum exponent of every prime in a or b
+	 */
+	public static SortedMap<BigInteger, Integer> lcm(Map<BigInteger, Integer> a, Map<BigInteger, Integer> b) {
+		SortedMap<BigInteger, Integer> ret = new TreeMap<>(a);
+		
+		for(Map.Entry<BigInteger, Integer> e : b.entrySet()) {
+			ret.merge(e.getKey(), e.getValue(), Math::max);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 *
+	 * @param factorization
+	 * @return the number with the given prime factorization
+	 */
+	public static BigInteger value(Map<BigInteger, Integer> factorization) {
+		BigInteger ret = BigInteger.ONE;
+		
+		for(Map.Entry<BigInteger, Integer> e : factorization.entrySet()) {
+			ret = ret.multiply(e.getKey().pow(e.getValue()));
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 *
+	 * @param n > 0
+	 * @param primes number of primes of {@link #SMALL_PRIMES} to check, at least the products containing them are checked
+	 * @return the smallest prime of the first primes of {@link #SMALL_PRIMES} that divides n or 0 if there is none
+	 */
+	static int smallFactor(BigInteger n, int primes) {
+		for(int i = 0; i < PRIME_PRODUCTS.length && PRIME_PRODUCT_OFFSETS[i] < primes; i++) {
+			long remainder = n.mod(BigInteger.valueOf(PRIME_PRODUCTS[i])).longValue();
+			
+			for(int j = PRIME_PRODUCT_OFFSETS[i]; j < PRIME_PRODUCT_OFFSETS[i + 1]; j++) {
+				if(remainder % SMALL_PRIMES[j] == 0) {
+					return SMALL_PRIMES[j];
+				}
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * divides all primes of {@link #SMALL_PRIMES} out of n and adds them to factorization
+	 * @param n
+	 * @param factorization
+	 * @return the cofactor of n without prime factors below {@link #SMALL_PRIMES_LIMIT}
+	 */
+	private static BigInteger trialDivision(BigInteger n, SortedMap<BigInteger, Integer> factorization) {
+		for(int i = 0; i < PRIME_PRODUCTS.length; i++) {
+			if(n.compareTo(BigInteger.ONE) == 0) {
+				break;
+			}
+			
+			long remainder = n.mod(BigInteger.valueOf(PRIME_PRODUCTS[i])).longValue();
+			
+			for(int j = PRIME_PRODUCT_OFFSETS[i]; j < PRIME_PRODUCT_OFFSETS[i + 1]; j++) {
+				int prime = SMALL_PRIMES[j], exponent = 0;
+				
+				if(remainder % prime != 0) {
+					continue;
+				}
+				
+				BigInteger[] division;
+				BigInteger divisor = BigInteger.valueOf(prime);
+				
+				while((division = n.divideAndRemainder(divisor))[1].signum() == 0) {
+					n = division[0];
+					exponent++;
+				}
+				
+				factorization.put(divisor, exponent);
+			}
+		}
+		
+		return n;
+	}
+	
+	/**
+	 *
+	 * @param n without prime factors below {@link #SMALL_PRIMES_LIMIT}
+	 * @param factorization
+	 * @param maxIterations
+	 */
+	private static void factorCofactor(BigInteger n, SortedMap<BigInteger, Integer> factorization, long maxIterations) {
+		if(n.compareTo(SQUARED_LIMIT) < 0 || n.isProbablePrime(CERTAINTY)) {
+			factorization.merge(n, 1, Integer::sum);
+			
+			return;
+		}
+		
+		BigInteger divisor = pollardBrent(n, maxIterations);
+		
+		factorCofactor(divisor, factorization, maxIterations);
+		factorCofactor(n.divide(divisor), factorization, maxIterations);
+	}
+	
+	/**
+	 * Brent's variant of Pollard's rho method with batched gcd computations
+	 * @param n odd composite number
+	 * @param maxIterations squarings of all polynomials tried together
+	 * @return a non trivial divisor of n
+	 * @throws ArithmeticException if no divisor is found within maxIterations squarings
+	 */
+	private static BigInteger pollardBrent(BigInteger n, long maxIterations) {
+		long iterations = 0;
+		
+		for(BigInteger c = BigInteger.ONE; ; c = c.add(BigInteger.ONE)) {
+			BigInteger x, y = BigInteger.TWO, ys = y, product = BigInteger.ONE, divisor = BigInteger.ONE;
+			long power = 1;
+			
+			while(divisor.compareTo(BigInteger.ONE) == 0) {
+				if(iterations > maxIterations) {
+					throw new ArithmeticException("No factor of the " + n.bitLength() + " bit cofactor " + n + " found within " + maxIterations + " Pollard-Brent iterations.");
+				}
+				
+				iterations += 2*power; // the squarings up to the next doubling of power
+				x = y;
+				
+				for(long i = 0; i < power; i++) {
+					y = y.multiply(y).add(c).mod(n);
+				}
+				
+				for(long k = 0; k < power && divisor.compareTo(BigInteger.ONE) == 0; k += BRENT_BATCH) {
+					ys = y;
+					
+					for(long i = 0; i < Math.min(BRENT_BATCH, power - k); i++) {
+						y = y.multiply(y).add(c).mod(n);
+						product = product.multiply(x.subtract(y).abs()).mod(n);
+					}
+					
+					divisor = product.gcd(n);
+				}
+				
+				power <<= 1;
+				
+				if(divisor.compareTo(n) == 0) { // batch overshot, step back one product at a time
+					do {
+						ys = ys.multiply(ys).add(c).mod(n);
+						divisor = x.subtract(ys).abs().gcd(n);
+					} while(divisor.compareTo(BigInteger.ONE) == 0);
+				}
+			}
+			
+			if(divisor.compareTo(n) != 0) {
+				return divisor;
+			}
+			// cycle closed without splitting n, retry with another polynomial x^2 + c
+		}
+	}
+}
@@ -2,16 +2,64 @@ package math;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 
 public class Functions {
-	// TODO inefficient 
+	private final static int CACHED_MAX_PERIOD_LENGTHS = 16;
+	private final static Map<List<BigInteger>, BigInteger> MAX_PERIOD_LENGTHS = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, BigInteger> eldest) {
+			return size() > CACHED_MAX_PERIOD_LENGTHS;
+		}
+	}); // (p, q) -> carmichael(carmichael(pq)) of the least recently used moduli
+	
+	/**
+	 * computes the carmichael function from the prime factorization of n
+	 * @param n > 0
+	 * @return carmichael(n)
+	 */
+	public static BigInteger carmichael(BigInteger n) {
+		return carmichael(Factorization.factor(n));
+	}
+	
 	/**
+	 * carmichael(p^e) = eulerphi(p^e) for odd primes p and for 2 and 4, carmichael(2^e) = 2^(e - 2) for e >= 3
+	 * and carmichael(n) is the lcm of carmichael over the prime powers of n
+	 * @param factorization prime -> exponent
+	 * @return carmichael(n) for the n with the given prime factorization
+	 */
+	public static BigInteger carmichael(Map<BigInteger, Integer> factorization) {
+		BigInteger ret = BigInteger.ONE, lambda;
+		
+		for(Map.Entry<BigInteger, Integer> e : factorization.entrySet()) {
+			BigInteger p = e.getKey();
+			int exponent = e.getValue();
+			
+			if(p.compareTo(BigInteger.TWO) == 0) {
+				lambda = BigInteger.ONE.shiftLeft(exponent <= 2 ? exponent - 1 : exponent - 2);
+			}
+			else {
+				lambda = p.pow(exponent - 1).multiply(p.subtract(BigInteger.ONE));
+			}
+			
+			ret = lcm(ret, lambda);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * brute force reference of {@link #carmichael(BigInteger)} which enumerates Z_n^*, only feasible for small n
 	 * https://stackoverflow.com/questions/47761383/proper-carmichael-function
 	 * @param n
-	 * @return
+	 * @return carmichael(n)
 	 */
-	public static BigInteger carmichael(BigInteger n) {
+	public static BigInteger carmichaelBruteForce(BigInteger n) {
 		ArrayList<BigInteger> elements = groupElements(n);
 		BigInteger ret = BigInteger.TWO;
 		int remaining = elements.size();
@@ -91,7 +139,105 @@ public class Functions {
 	 * @return maxmimum period of Blum-Number n = pq, which is carmichael(carmichael(pq)) = carmichael(lcd(eulerphi(p), eulerphi(q))) = carmichael(lcm(p - 1, q - 1))
 	 * 			since p and q are prime
 	 */
-	public static int maxPeriodLengthBlumBlumShub(BigInteger p, BigInteger q) {
-		return carmichael(lcm(p.subtract(BigInteger.ONE), (q.subtract(BigInteger.ONE)))).intValue();
+	public static BigInteger maxPeriodLengthBlumBlumShub(BigInteger p, BigInteger q) {
+		return MAX_PERIOD_LENGTHS.computeIfAbsent(List.of(p, q), key -> {
+			// p - 1 and q - 1 are factored separately, which is much cheaper than factoring their lcm
+			SortedMap<BigInteger, Integer> factorization = Factorization.lcm(Factorization.factor(p.subtract(BigInteger.ONE)), 
+					Factorization.factor(q.subtract(BigInteger.ONE)));
+			
+			return carmichael(factorization);
+		});
+	}
+	
+	/**
+	 * 
+	 * @param seed element of Z_pq^*
+	 * @param p
+	 * @param q
+	 * @return exact cycle length of the Blum-Blum-Shub orbit of seed, computed by {@link PeriodCalculator} without
+	 * 			stepping through the orbit
+	 * @throws ArithmeticException if the modulus is too large for the factorizations the period needs
+	 */
+	public static BigInteger periodLengthBlumBlumShub(BigInteger seed, BigInteger p, BigInteger q) {
+		return PeriodCalculator.of(p, q).cycleLength(seed);
+	}
+	
+	/**
+	 * complementary error function by a Chebyshev approximation with fractional error below 1.2*10^-7 (Numerical Recipes erfcc)
+	 * @param x
+	 * @return erfc(x) = 1 - erf(x)
+	 */
+	public static double erfc(double x) {
+		double z = Math.abs(x), t = 1/(1 + 0.5*z),
+			   ret = t*Math.exp(-z*z - 1.26551223 + t*(1.00002368 + t*(0.37409196 + t*(0.09678418 + t*(-0.18628806
+					 + t*(0.27886807 + t*(-1.13520398 + t*(1.48851587 + t*(-0.82215223 + t*0.17087277)))))))));
+		
+		return x >= 0 ? ret : 2 - ret;
+	}
+	
+	/**
+	 * Lanczos approximation of the logarithm of the gamma function
+	 * @param x > 0
+	 * @return ln(gamma(x))
+	 */
+	public static double logGamma(double x) {
+		double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+		double y = x, tmp = x + 5.5, series = 1.000000000190015;
+		
+		tmp -= (x + 0.5)*Math.log(tmp);
+		
+		for(double coefficient : coefficients) {
+			series += coefficient/++y;
+		}
+		
+		return -tmp + Math.log(2.5066282746310005*series/x);
+	}
+	
+	/**
+	 * regularized upper incomplete gamma function, evaluated by its series for x < a + 1 and by a continued fraction else,
+	 * igamc(k/2, chi^2/2) is the p-value of chi^2 with k degrees of freedom
+	 * @param a > 0
+	 * @param x >= 0
+	 * @return Q(a, x) = gamma(a, x)/gamma(a)
+	 */
+	public static double igamc(double a, double x) {
+		if(x <= 0) {
+			return 1;
+		}
+		
+		double logPrefix = -x + a*Math.log(x) - logGamma(a);
+		
+		if(x < a + 1) { // series of P(a, x) = 1 - Q(a, x)
+			double term = 1/a, sum = term;
+			
+			for(double n = a + 1; Math.abs(term) > Math.abs(sum)*1e-15; n++) {
+				term *= x/n;
+				sum += term;
+			}
+			
+			return Math.max(0, 1 - sum*Math.exp(logPrefix));
+		}
+		
+		// modified Lentz evaluation of the continued fraction of Q(a, x)
+		double tiny = 1e-300, b = x + 1 - a, c = 1/tiny, d = 1/b, ret = d, delta;
+		
+		for(int i = 1; i < 10000; i++) {
+			double an = -i*(i - a);
+			
+			b += 2;
+			d = an*d + b;
+			d = Math.abs(d) < tiny ? tiny : d;
+			c = b + an/c;
+			c = Math.abs(c) < tiny ? tiny : c;
+			d = 1/d;
+			delta = d*c;
+			ret *= delta;
+			
+			if(Math.abs(delta - 1) < 1e-15) {
+				break;
+			}
+		}
+		
+		return Math.exp(logPrefix)*ret;
 	}
 }
@@ -0,0 +1,249 @@
+package math;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Miller-Rabin primality test. For n - 1 = 2^s*d with d odd a base a proves n composite unless a^d = 1 mod n or
+ * a^(d*2^i) = -1 mod n for some 0 <= i < s, where the powers a^(d*2^i) are obtained by squaring a^d repeatedly.
+ * Numbers below 2^64 are tested deterministically with a fixed set of bases on primitive longs.
+ */
+public class MillerRabin {
+	private final static int TRIAL_PRIMES = 256; // small primes divided out of every candidate before the first base
+	private final static int SIEVE_WINDOW = 1 << 12; // candidates sieved at once by nextProbablePrime
+	private final static int LONG_TRIAL_PRIMES = 16; // primes 2, 3, ..., 53 divided out of candidates below 2^64
+	private final static long[] LONG_BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022}; // no strong pseudoprime below 2^64 passes all of them
+	
+	/**
+	 * deterministic test for numbers below 2^64
+	 * @param n treated as unsigned
+	 * @return true if n is prime
+	 */
+	public static boolean isPrime(long n) {
+		if(Long.compareUnsigned(n, 2) < 0) {
+			return false;
+		}
+		
+		for(int i = 0; i < LONG_TRIAL_PRIMES; i++) {
+			if(Long.remainderUnsigned(n, Factorization.SMALL_PRIMES[i]) == 0) {
+				return n == Factorization.SMALL_PRIMES[i];
+			}
+		}
+		
+		if(Long.compareUnsigned(n, (long)Factorization.SMALL_PRIMES[LONG_TRIAL_PRIMES] * Factorization.SMALL_PRIMES[LONG_TRIAL_PRIMES]) < 0) {
+			return true;
+		}
+		
+		MontgomeryLong montgomery = new MontgomeryLong(n);
+		int s = Long.numberOfTrailingZeros(n - 1);
+		long d = (n - 1) >>> s, one = montgomery.toMontgomery(1), minusOne = montgomery.toMontgomery(n - 1);
+		
+		for(long base : LONG_BASES) {
+			long a = Long.remainderUnsigned(base, n);
+			
+			if(a != 0 && isWitness(montgomery.pow(montgomery.toMontgomery(a), d), s, one, minusOne, montgomery)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 
+	 * @param n
+	 * @param rounds number of bases, the first base is 2 and the others are random, a composite n passes with probability
+	 * 			less than (1/4)^rounds, ignored if n < 2^64
+	 * @param rand source of the random bases
+	 * @return true if n is probably prime, false if n is composite
+	 */
+	public static boolean isProbablePrime(BigInteger n, int rounds, Random rand) {
+		return isProbablePrime(n, rounds, rand, true);
+	}
+	
+	/**
+	 * tests the candidates first + k*step for 0 <= k < count at once, a sieve over small primes removes the candidates
+	 * with small factors before any base is tried
+	 * @param first > 0
+	 * @param step > 0
+	 * @param count
+	 * @param rounds
+	 * @param rand
+	 * @return true on index k if first + k*step is probably prime
+	 */
+	public static boolean[] isProbablePrime(BigInteger first, BigInteger step, int count, int rounds, Random rand) {
+		boolean[] composite = sieve(first, step, count), ret = new boolean[count];
+		BigInteger candidate = first;
+		
+		for(int k = 0; k < count; k++, candidate = candidate.add(step)) {
+			ret[k] = !composite[k] && isProbablePrime(candidate, rounds, rand, false);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param first > 0
+	 * @param step > 0 with gcd(first, step) = 1, else the search may not terminate
+	 * @param rounds
+	 * @param rand
+	 * @return the smallest probable prime first + k*step with k >= 0
+	 */
+	public static BigInteger nextProbablePrime(BigInteger first, BigInteger step, int rounds, Random rand) {
+		BigInteger windowStep = step.multiply(BigInteger.valueOf(SIEVE_WINDOW));
+		
+		while(true) {
+			boolean[] composite = sieve(first, step, SIEVE_WINDOW);
+			BigInteger candidate = first;
+			
+			for(int k = 0; k < SIEVE_WINDOW; k++, candidate = candidate.add(step)) {
+				if(!composite[k] && isProbablePrime(candidate, rounds, rand, false)) {
+					return candidate;
+				}
+			}
+			
+			first = first.add(windowStep);
+		}
+	}
+	
+	private static boolean isProbablePrime(BigInteger n, int rounds, Random rand, boolean trialDivision) {
+		if(n.signum() <= 0) {
+			return false;
+		}
+		
+		if(n.bitLength() <= Long.SIZE) {
+			return isPrime(n.longValue());
+		}
+		
+		if(trialDivision && Factorization.smallFactor(n, TRIAL_PRIMES) != 0) { // n > 2^64 can not be one of the small primes
+			return false;
+		}
+		
+		BigInteger nMinusOne = n.subtract(BigInteger.ONE);
+		int s = nMinusOne.getLowestSetBit();
+		BigInteger d = nMinusOne.shiftRight(s);
+		
+		for(int i = 0; i < rounds; i++) {
+			BigInteger base = i == 0 ? BigInteger.TWO : randomBase(n, rand);
+			
+			if(isWitness(base.modPow(d, n), s, n, nMinusOne)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 
+	 * @param x a^d in Montgomery form
+	 * @param s
+	 * @param one 1 in Montgomery form
+	 * @param minusOne n - 1 in Montgomery form
+	 * @param montgomery
+	 * @return true if a is a witness for the compositeness of n
+	 */
+	private static boolean isWitness(long x, int s, long one, long minusOne, MontgomeryLong montgomery) {
+		if(x == one || x == minusOne) {
+			return false;
+		}
+		
+		for(int i = 1; i < s; i++) {
+			x = montgomery.square(x);
+			
+			if(x == minusOne) {
+				return false;
+			}
+			
+			if(x == one) { // 1 without -1 before, so x has a non trivial square root of 1
+				return true;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 
+	 * @param x a^d mod n
+	 * @param s
+	 * @param n
+	 * @param nMinusOne
+	 * @return true if a is a witness for the compositeness of n
+	 */
+	private static boolean isWitness(BigInteger x, int s, BigInteger n, BigInteger nMinusOne) {
+		if(x.compareTo(BigInteger.ONE) == 0 || x.compareTo(nMinusOne) == 0) {
+			return false;
+		}
+		
+		for(int i = 1; i < s; i++) {
+			x = x.multiply(x).mod(n);
+			
+			if(x.compareTo(nMinusOne) == 0) {
+				return false;
+			}
+			
+			if(x.compareTo(BigInteger.ONE) == 0) {
+				return true;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * 
+	 * @param n
+	 * @param rand
+	 * @return a random base 2 <= a <= n - 2
+	 */
+	private static BigInteger randomBase(BigInteger n, Random rand) {
+		BigInteger ret, max = n.subtract(BigInteger.TWO);
+		
+		do {
+			ret = new BigInteger(n.bitLength(), rand);
+		} while(ret.compareTo(BigInteger.TWO) < 0 || ret.compareTo(max) > 0);
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param first
+	 * @param step
+	 * @param count
+	 * @return true on index k if first + k*step has a factor among the first {@link TRIAL_PRIMES} primes,
+	 * 			nothing is sieved if a candidate could be one of these primes itself
+	 */
+	private static boolean[] sieve(BigInteger first, BigInteger step, int count) {
+		boolean[] ret = new boolean[count];
+		
+		if(first.compareTo(BigInteger.valueOf(Factorization.SMALL_PRIMES[TRIAL_PRIMES - 1])) <= 0) {
+			return ret;
+		}
+		
+		for(int i = 0; i < TRIAL_PRIMES; i++) {
+			BigInteger prime = BigInteger.valueOf(Factorization.SMALL_PRIMES[i]);
+			long r = Factorization.SMALL_PRIMES[i], firstResidue = first.mod(prime).longValue(), stepResidue = step.mod(prime).longValue();
+			
+			if(stepResidue == 0) { // every or no candidate is divisible by r
+				if(firstResidue == 0) {
+					Arrays.fill(ret, true);
+				}
+				
+				continue;
+			}
+			
+			// first + k*step = 0 mod r <=> k = -first/step mod r
+			long k = (r - firstResidue) % r * BigInteger.valueOf(stepResidue).modInverse(prime).longValue() % r;
+			
+			for(; k < count; k += r) {
+				ret[(int)k] = true;
+			}
+		}
+		
+		return ret;
+	}
+}
@@ -0,0 +1,174 @@
+package math;
+
+import java.math.BigInteger;
+
+/**
+ * Montgomery arithmetic with R = 2^64 for an odd modulus n < 2^64 on primitive longs, all values are treated as unsigned.
+ * Values in Montgomery form are x*R mod n, squaring commutes with the conversion, so x -> x^2 mod n can be iterated
+ * in Montgomery form without any allocation.
+ */
+public final class MontgomeryLong {
+	private final long modulus, modulusInverse, rSquared; // modulusInverse = -n^-1 mod 2^64, rSquared = R^2 mod n
+	
+	public MontgomeryLong(BigInteger modulus) {
+		this(checked(modulus).longValue());
+	}
+	
+	/**
+	 *
+	 * @param modulus odd, treated as unsigned
+	 */
+	public MontgomeryLong(long modulus) {
+		if((modulus & 1) == 0) {
+			throw new IllegalArgumentException("Modulus " + Long.toUnsignedString(modulus) + " has to be odd.");
+		}
+		
+		long inverse = modulus, r = Long.remainderUnsigned(-modulus, modulus); // r = 2^64 mod n
+		
+		this.modulus = modulus;
+		
+		for(int i = 0; i < 5; i++) { // Newton iteration, every step doubles the number of correct low bits 3 -> 6 -> ... -> 96
+			inverse *= 2 - modulus * inverse;
+		}
+		
+		for(int i = 0; i < Long.SIZE; i++) { // doubling R mod n 64 times gives R^2 mod n
+			r = add(r, r);
+		}
+		
+		modulusInverse = -inverse;
+		rSquared = r;
+	}
+	
+	/**
+	 *
+	 * @param modulus
+	 * @return true if modulus is odd and smaller than 2^64
+	 */
+	public static boolean fits(BigInteger modulus) {
+		return modulus.signum() > 0 && modulus.testBit(0) && modulus.bitLength() <= Long.SIZE;
+	}
+	
+	/**
+	 *
+	 * @param a in Montgomery form
+	 * @param b in Montgomery form
+	 * @return a*b*R^-1 mod n, which is a*b in Montgomery form
+	 */
+	public long multiply(long a, long b) {
+		long low = a * b, high = unsignedMultiplyHigh(a, b), m = low * modulusInverse,
+			 // low + low(m*n) = 0 mod 2^64, so the low half only contributes a carry if it is non zero
+			 sum = high + unsignedMultiplyHigh(m, modulus) + (low != 0 ? 1 : 0);
+		
+		if(Long.compareUnsigned(sum, high) < 0 || Long.compareUnsigned(sum, modulus) >= 0) { // overflow of 2^64 or sum >= n
+			sum -= modulus;
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 *
+	 * @param a in Montgomery form
+	 * @return a^2 in Montgomery form
+	 */
+	public long square(long a) {
+		return multiply(a, a);
+	}
+	
+	/**
+	 *
+	 * @param a in Montgomery form
+	 * @param exponent treated as unsigned
+	 * @return a^exponent in Montgomery form
+	 */
+	public long pow(long a, long exponent) {
+		long ret = toMontgomery(1);
+		
+		for(int i = Long.SIZE - 1 - Long.numberOfLeadingZeros(exponent); i >= 0; i--) {
+			ret = square(ret);
+			
+			if((exponent >>> i & 1) != 0) {
+				ret = multiply(ret, a);
+			}
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 *
+	 * @param a < n
+	 * @param b < n
+	 * @return a+b mod n
+	 */
+	public long add(long a, long b) {
+		long sum = a + b;
+		
+		if(Long.compareUnsigned(sum, a) < 0 || Long.compareUnsigned(sum, modulus) >= 0) { // overflow of 2^64 or sum >= n
+			sum -= modulus;
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 *
+	 * @param a < n
+	 * @param b < n
+	 * @return a*b mod n, both factors and the result in standard form
+	 */
+	public long multiplyModulo(long a, long b) {
+		return multiply(multiply(a, b), rSquared);
+	}
+	
+	/**
+	 *
+	 * @param a < n
+	 * @return a*R mod n
+	 */
+	public long toMontgomery(long a) {
+		return multiply(a, rSquared);
+	}
+	
+	/**
+	 *
+	 * @param a in Montgomery form
+	 * @return a*R^-1 mod n
+	 */
+	public long fromMontgomery(long a) {
+		return multiply(a, 1);
+	}
+	
+	public long getModulus() {
+		return modulus;
+	}
+	
+	private static BigInteger checked(BigInteger modulus) {
+		if(!fits(modulus)) {
+			throw new IllegalArgumentException("Modulus " + modulus + " has to be odd and smaller than 2^64.");
+		}
+		
+		return modulus;
+	}
+	
+	/**
+	 *
+	 * @param unsigned
+	 * @return unsigned as non negative BigInteger
+	 */
+	public static BigInteger toBigInteger(long unsigned) {
+		BigInteger ret = BigInteger.valueOf(unsigned);
+		
+		return unsigned >= 0 ? ret : ret.add(BigInteger.ONE.shiftLeft(Long.SIZE));
+	}
+	
+	/**
+	 *
+	 * @param a
+	 * @param b
+	 * @return the high 64 bits of the unsigned 128 bit product a*b
+	 */
+	public static long unsignedMultiplyHigh(long a, long b) {
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
+}
@@ -0,0 +1,257 @@
+package math;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Montgomery arithmetic with R = 2^(64k) for an odd modulus n of k 64 bit limbs. Values are preallocated long[] of k limbs
+ * with the least significant limb first and are squared in place, the double length product is kept in one scratch array
+ * of the instance, so iterating x -> x^2 mod n in Montgomery form does not allocate at all. The squaring computes every
+ * cross product a_i*a_j once and doubles them, the reduction adds m*n shifted by one limb per step (SOS), all limb
+ * products are formed with {@link MontgomeryLong#unsignedMultiplyHigh(long, long)}. An instance is not thread safe.
+ */
+public final class MutableMontgomery {
+	private final BigInteger modulus;
+	private final long[] n,
+						 product; // scratch for the 2k limbs of a square and a carry limb
+	private final long inverse; // -n^-1 mod 2^64
+	private final int size;
+	
+	/**
+	 * 
+	 * @param modulus odd
+	 */
+	public MutableMontgomery(BigInteger modulus) {
+		if(modulus.signum() <= 0 || !modulus.testBit(0)) {
+			throw new IllegalArgumentException("Modulus " + modulus + " has to be positive and odd.");
+		}
+		
+		long n0 = modulus.longValue(), inv = n0;
+		
+		for(int i = 0; i < 5; i++) { // Newton iteration like in MontgomeryLong
+			inv *= 2 - n0 * inv;
+		}
+		
+		this.modulus = modulus;
+		size = (modulus.bitLength() + Long.SIZE - 1) / Long.SIZE;
+		n = new long[size];
+		product = new long[2*size + 1];
+		inverse = -inv;
+		toLimbs(modulus, n);
+	}
+	
+	/**
+	 * 
+	 * @return a new value of k limbs, 0
+	 */
+	public long[] newElement() {
+		return new long[size];
+	}
+	
+	/**
+	 * 
+	 * @param a
+	 * @param dst receives a*R mod n
+	 */
+	public void toMontgomery(BigInteger a, long[] dst) {
+		toLimbs(a.mod(modulus).shiftLeft(Long.SIZE*size).mod(modulus), dst);
+	}
+	
+	/**
+	 * 
+	 * @param a in Montgomery form
+	 * @return a*R^-1 mod n
+	 */
+	public BigInteger fromMontgomery(long[] a) {
+		reduceCopy(a);
+		
+		BigInteger ret = BigInteger.ZERO;
+		
+		for(int i = size - 1; i >= 0; i--) {
+			ret = ret.shiftLeft(Long.SIZE).or(MontgomeryLong.toBigInteger(product[size + i]));
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param a in Montgomery form
+	 * @return the lowest 64 bits of a*R^-1 mod n
+	 */
+	public long lowBits(long[] a) {
+		long[] p = product;
+		
+		System.arraycopy(a, 0, p, 0, size);
+		p[size] = 0;
+		
+		/*
+		 * the reduction of a < n is below n + 1 and equal to n only for a = 0, so it never needs the final subtraction 
+		 * and only the limbs 0 to k of a + m*n have to be computed, which takes about half of the limb products
+		 */
+		for(int i = 0; i < size; i++) {
+			long m = p[i] * inverse, carry = 0;
+			
+			for(int j = 0; i + j < size; j++) {
+				long low = m * n[j], high = MontgomeryLong.unsignedMultiplyHigh(m, n[j]), old = p[i + j];
+				
+				low += old;
+				high += Long.compareUnsigned(low, old) < 0 ? 1 : 0;
+				low += carry;
+				high += Long.compareUnsigned(low, carry) < 0 ? 1 : 0;
+				p[i + j] = low;
+				carry = high;
+			}
+			
+			p[size] += carry + (i > 0 ? m * n[size - i] : 0); // the carries out of limb k do not matter
+		}
+		
+		return p[size];
+	}
+	
+	/**
+	 * replaces a by a*a*R^-1 mod n, which is a^2 in Montgomery form
+	 * @param a in Montgomery form
+	 */
+	public void square(long[] a) {
+		long[] p = product;
+		long carry;
+		
+		Arrays.fill(p, 0);
+		
+		for(int i = 0; i < size; i++) { // cross products a_i*a_j with i < j
+			long ai = a[i];
+			
+			carry = 0;
+			
+			for(int j = i + 1; j < size; j++) {
+				long low = ai * a[j], high = MontgomeryLong.unsignedMultiplyHigh(ai, a[j]), old = p[i + j];
+				
+				low += old;
+				high += Long.compareUnsigned(low, old) < 0 ? 1 : 0;
+				low += carry;
+				high += Long.compareUnsigned(low, carry) < 0 ? 1 : 0;
+				p[i + j] = low;
+				carry = high;
+			}
+			
+			p[i + size] = carry;
+		}
+		
+		for(int j = 2*size - 1; j > 0; j--) { // the cross products are below a^2/2, so doubling them does not overflow
+			p[j] = p[j] << 1 | p[j - 1] >>> (Long.SIZE - 1);
+		}
+		
+		p[0] <<= 1;
+		carry = 0;
+		
+		for(int i = 0; i < size; i++) { // squares a_i^2 on the diagonal
+			long low = a[i] * a[i], high = MontgomeryLong.unsignedMultiplyHigh(a[i], a[i]), sum = p[2*i] + low,
+				 next = Long.compareUnsigned(sum, low) < 0 ? 1 : 0;
+			
+			sum += carry;
+			next += Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+			p[2*i] = sum;
+			sum = p[2*i + 1] + high;
+			carry = Long.compareUnsigned(sum, high) < 0 ? 1 : 0;
+			sum += next;
+			carry += Long.compareUnsigned(sum, next) < 0 ? 1 : 0;
+			p[2*i + 1] = sum;
+		}
+		
+		reduce();
+		System.arraycopy(p, size, a, 0, size);
+	}
+	
+	public BigInteger getModulus() {
+		return modulus;
+	}
+	
+	/**
+	 * 
+	 * @return number of limbs k
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * reduces a copy of a, the result a*R^-1 mod n is left in the upper half of the scratch array
+	 */
+	private void reduceCopy(long[] a) {
+		Arrays.fill(product, 0);
+		System.arraycopy(a, 0, product, 0, size);
+		reduce();
+	}
+	
+	/**
+	 * Montgomery reduction of the scratch array t < n*R: every step adds m*n with m = -t_i*n^-1 mod 2^64 at limb i,
+	 * which clears limb i, so t + m*n is divisible by R after k steps. The result t/R < 2n is in the limbs k to 2k
+	 * and is reduced below n by one subtraction.
+	 */
+	private void reduce() {
+		long[] p = product;
+		
+		for(int i = 0; i < size; i++) {
+			long m = p[i] * inverse, carry = 0;
+			
+			for(int j = 0; j < size; j++) {
+				long low = m * n[j], high = MontgomeryLong.unsignedMultiplyHigh(m, n[j]), old = p[i + j];
+				
+				low += old;
+				high += Long.compareUnsigned(low, old) < 0 ? 1 : 0;
+				low += carry;
+				high += Long.compareUnsigned(low, carry) < 0 ? 1 : 0;
+				p[i + j] = low;
+				carry = high;
+			}
+			
+			for(int j = i + size; carry != 0; j++) { // t + m*n*2^(64i) < 2n*R fits into the 2k + 1 limbs
+				long sum = p[j] + carry;
+				
+				carry = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+				p[j] = sum;
+			}
+		}
+		
+		if(p[2*size] != 0 || compareToModulus() >= 0) {
+			long borrow = 0;
+			
+			for(int j = 0; j < size; j++) {
+				long limb = p[size + j], difference = limb - n[j] - borrow;
+				
+				borrow = Long.compareUnsigned(limb, n[j]) < 0 || (limb == n[j] && borrow != 0) ? 1 : 0;
+				p[size + j] = difference;
+			}
+			
+			p[2*size] = 0;
+		}
+	}
+	
+	/**
+	 * 
+	 * @return the comparison of the limbs k to 2k - 1 of the scratch array with n
+	 */
+	private int compareToModulus() {
+		for(int j = size - 1; j >= 0; j--) {
+			int ret = Long.compareUnsigned(product[size + j], n[j]);
+			
+			if(ret != 0) {
+				return ret;
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * 
+	 * @param a 0 <= a < 2^(64k)
+	 * @param dst receives the k limbs of a
+	 */
+	private void toLimbs(BigInteger a, long[] dst) {
+		for(int i = 0; i < size; i++) {
+			dst[i] = a.shiftRight(Long.SIZE*i).longValue();
+		}
+	}
+}
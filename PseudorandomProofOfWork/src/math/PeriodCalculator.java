@@ -0,0 +1,163 @@
+package math;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the period of the Blum-Blum-Shub orbit x0, x0^2, x0^4, ... mod n = pq analytically instead of stepping through it.
+ * With t = ord_n(x0) = 2^a*t' and t' odd the states x_i = x0^(2^i) repeat as soon as 2^i repeats mod t, so the orbit has
+ * a tail of a states followed by a cycle of length ord_t'(2). ord_n(x0) is the lcm of the orders mod p and q, found from the
+ * factorizations of p - 1 and q - 1, and ord_t'(2) is found from the factorization of carmichael(t'), which needs the
+ * factorizations of r - 1 for the primes r of t'. All factorizations are cached per modulus, so after the first seed every
+ * period costs a few modPows. The factorizations have to be feasible, e.g. r - 1 for the large prime r = (p - 1)/2 of a
+ * strong prime p: {@link Factorization#factor(BigInteger)} gives up after {@value Factorization#MAX_BRENT_ITERATIONS}
+ * iterations, which splits off primes up to about 2^36. That covers every modulus up to about 128 bits, beyond that only
+ * moduli whose r - 1 happen to be smooth, so from about 256 bits on {@link #cycleLength(BigInteger)} practically always
+ * fails with an ArithmeticException instead of computing the period.
+ */
+public class PeriodCalculator {
+	private final static int CACHED_CALCULATORS = 16;
+	private final static Map<List<BigInteger>, PeriodCalculator> CALCULATORS = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, PeriodCalculator> eldest) {
+			return size() > CACHED_CALCULATORS;
+		}
+	}); // (p, q) -> calculator, the least recently used ones are dropped
+	private final BigInteger p, q, modulus;
+	private final SortedMap<BigInteger, Integer> factorizationP, factorizationQ; // of p - 1 and q - 1
+	private final Map<BigInteger, SortedMap<BigInteger, Integer>> predecessors = new ConcurrentHashMap<>(); // r -> factorization of r - 1
+	
+	private PeriodCalculator(BigInteger p, BigInteger q) {
+		this.p = p;
+		this.q = q;
+		modulus = p.multiply(q);
+		factorizationP = Factorization.factor(p.subtract(BigInteger.ONE));
+		factorizationQ = Factorization.factor(q.subtract(BigInteger.ONE));
+	}
+	
+	/**
+	 * 
+	 * @param p prime
+	 * @param q prime
+	 * @return the calculator for n = pq, shared while n is one of the last {@value #CACHED_CALCULATORS} moduli used
+	 * @throws ArithmeticException if p - 1 or q - 1 can not be factored
+	 */
+	public static PeriodCalculator of(BigInteger p, BigInteger q) {
+		return CALCULATORS.computeIfAbsent(List.of(p, q), key -> new PeriodCalculator(p, q));
+	}
+	
+	/**
+	 * 
+	 * @param seed element of Z_n^*
+	 * @return number of states of the orbit of seed before its cycle, the exponent of 2 in ord_n(seed)
+	 */
+	public int tailLength(BigInteger seed) {
+		return order(seed).getOrDefault(BigInteger.TWO, 0);
+	}
+	
+	/**
+	 * 
+	 * @param seed element of Z_n^*
+	 * @return length of the cycle the orbit of seed ends in, ord_t'(2) for the odd part t' of ord_n(seed)
+	 * @throws ArithmeticException if r - 1 can not be factored for a prime r of t', see {@link PeriodCalculator}
+	 */
+	public BigInteger cycleLength(BigInteger seed) {
+		SortedMap<BigInteger, Integer> oddOrder = order(seed);
+		
+		oddOrder.remove(BigInteger.TWO);
+		
+		if(oddOrder.isEmpty()) { // seed^(2^a) = 1 is a fixed point
+			return BigInteger.ONE;
+		}
+		
+		return order(BigInteger.TWO, Factorization.value(oddOrder), carmichael(oddOrder));
+	}
+	
+	public BigInteger getModulus() {
+		return modulus;
+	}
+	
+	/**
+	 * 
+	 * @param seed
+	 * @return factorization of ord_n(seed) = lcm(ord_p(seed), ord_q(seed))
+	 */
+	private SortedMap<BigInteger, Integer> order(BigInteger seed) {
+		if(seed.mod(p).signum() == 0 || seed.mod(q).signum() == 0) {
+			throw new IllegalArgumentException("Seed " + seed + " is not an element of Z_" + modulus + "^*.");
+		}
+		
+		return Factorization.lcm(orderFactorization(seed, p, factorizationP), orderFactorization(seed, q, factorizationQ));
+	}
+	
+	/**
+	 * 
+	 * @param factorization of an odd number t
+	 * @return factorization of carmichael(t), the lcm of r^(e - 1)*(r - 1) over the prime powers r^e of t
+	 */
+	private SortedMap<BigInteger, Integer> carmichael(Map<BigInteger, Integer> factorization) {
+		SortedMap<BigInteger, Integer> ret = new TreeMap<>();
+		
+		for(Map.Entry<BigInteger, Integer> e : factorization.entrySet()) {
+			SortedMap<BigInteger, Integer> lambda = new TreeMap<>(predecessors.computeIfAbsent(e.getKey(), r -> Factorization.factor(r.subtract(BigInteger.ONE))));
+			
+			if(e.getValue() > 1) {
+				lambda.merge(e.getKey(), e.getValue() - 1, Integer::sum);
+			}
+			
+			ret = Factorization.lcm(ret, lambda);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param a
+	 * @param modulus
+	 * @param factorization of a multiple of ord_modulus(a), e.g. of carmichael(modulus)
+	 * @return ord_modulus(a)
+	 */
+	private static BigInteger order(BigInteger a, BigInteger modulus, Map<BigInteger, Integer> factorization) {
+		return Factorization.value(orderFactorization(a, modulus, factorization));
+	}
+	
+	/**
+	 * divides every prime out of the multiple as long as a^(multiple/r) = 1 still holds
+	 * @param a
+	 * @param modulus
+	 * @param factorization of a multiple of ord_modulus(a)
+	 * @return factorization of ord_modulus(a)
+	 */
+	private static SortedMap<BigInteger, Integer> orderFactorization(BigInteger a, BigInteger modulus, Map<BigInteger, Integer> factorization) {
+		SortedMap<BigInteger, Integer> ret = new TreeMap<>(factorization);
+		BigInteger order = Factorization.value(factorization);
+		
+		a = a.mod(modulus);
+		
+		for(Map.Entry<BigInteger, Integer> e : factorization.entrySet()) {
+			BigInteger r = e.getKey();
+			int exponent = e.getValue();
+			
+			while(exponent > 0 && a.modPow(order.divide(r), modulus).compareTo(BigInteger.ONE) == 0) {
+				order = order.divide(r);
+				exponent--;
+			}
+			
+			if(exponent == 0) {
+				ret.remove(r);
+			}
+			else {
+				ret.put(r, exponent);
+			}
+		}
+		
+		return ret;
+	}
+}
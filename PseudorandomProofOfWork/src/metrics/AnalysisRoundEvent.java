@@ -0,0 +1,16 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("proofofwork.AnalysisRound")
+@Label("Analysis Round")
+@Category("Proof of Work")
+public class AnalysisRoundEvent extends Event {
+	@Label("Sequence Length")
+	public long sequenceLength;
+	@Label("Ratio of Zeroes and Ones")
+	public double ratio;
+}
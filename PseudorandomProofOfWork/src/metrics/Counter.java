@@ -0,0 +1,46 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * striped counter, concurrent increments of different threads do not contend on one memory location
+ */
+public class Counter {
+	private final String name;
+	private final LongAdder count = new LongAdder();
+	
+	Counter(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * counts one event if {@link Metrics#isEnabled()}
+	 */
+	public void increment() {
+		if(Metrics.isEnabled()) {
+			count.increment();
+		}
+	}
+	
+	/**
+	 * counts events if {@link Metrics#isEnabled()}
+	 * @param events
+	 */
+	public void add(long events) {
+		if(Metrics.isEnabled()) {
+			count.add(events);
+		}
+	}
+	
+	public long get() {
+		return count.sum();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	void reset() {
+		count.reset();
+	}
+}
@@ -0,0 +1,104 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * histogram of latencies in nanoseconds with power of two buckets, bucket i counts the latencies with i significant bits,
+ * so every quantile is exact up to a factor of two
+ */
+public class LatencyHistogram {
+	private final String name;
+	private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	
+	LatencyHistogram(String name) {
+		this.name = name;
+		
+		for(int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * records the time since start
+	 * @param start from {@link Metrics#start()}, nothing is recorded if it was taken while metrics were disabled
+	 */
+	public void recordSince(long start) {
+		if(start != 0) {
+			record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param nanos >= 0
+	 */
+	public void record(long nanos) {
+		if(Metrics.isEnabled()) {
+			buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+			sum.add(nanos);
+			max.accumulate(nanos);
+		}
+	}
+	
+	public long getCount() {
+		long ret = 0;
+		
+		for(LongAdder bucket : buckets) {
+			ret += bucket.sum();
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @return mean latency in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getMean() {
+		long count = getCount();
+		
+		return count == 0 ? 0 : sum.sum() / count;
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * 
+	 * @param quantile 0 <= quantile <= 1
+	 * @return upper bound of the bucket holding the quantile in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getQuantile(double quantile) {
+		long[] counts = new long[buckets.length];
+		long count = 0, seen = 0;
+		
+		for(int i = 0; i < buckets.length; i++) {
+			count += counts[i] = buckets[i].sum();
+		}
+		
+		for(int i = 0; i < buckets.length; i++) {
+			if((seen += counts[i]) > 0 && seen >= quantile * count) {
+				return i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+			}
+		}
+		
+		return 0;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	void reset() {
+		for(LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		
+		sum.reset();
+		max.reset();
+	}
+}
@@ -0,0 +1,132 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Counters and latency histograms of the hot paths. Recording is off unless enabled by {@link #setEnabled(boolean)} or
+ * the system property metrics.enabled, while disabled every counter and histogram only reads one volatile flag.
+ * The JDK Flight Recorder events of this package are independent of the flag and controlled by the recording.
+ */
+public class Metrics {
+	private static volatile boolean enabled = Boolean.getBoolean("metrics.enabled");
+	private final static List<Counter> COUNTERS = new ArrayList<>();
+	private final static List<LatencyHistogram> HISTOGRAMS = new ArrayList<>();
+	
+	public final static Counter SQUARINGS = counter("blumblumshub.squarings"), 
+								RESEEDS = counter("blumblumshub.reseeds"),
+								STRONG_PRIME_CANDIDATES = counter("primes.strongprime.candidates"), // candidates left after the sieve
+								STRONG_PRIME_REJECTIONS = counter("primes.strongprime.rejections"),
+								BLUM_NUMBER_PAIRS = counter("primes.blumnumber.pairs"), // (p, q) pairs evaluated
+								ANALYSIS_ROUNDS = counter("analysis.rounds");
+	public final static LatencyHistogram STRONG_PRIME_LATENCY = histogram("primes.strongprime.latency"),
+										 BLUM_NUMBER_PAIR_LATENCY = histogram("primes.blumnumber.pair.latency"),
+										 BLUM_NUMBER_LATENCY = histogram("primes.blumnumber.latency"),
+										 ANALYSIS_ROUND_LATENCY = histogram("analysis.round.latency");
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+	
+	/**
+	 * 
+	 * @return System.nanoTime() as start of a latency measurement or 0 if metrics are disabled
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * 
+	 * @return the current value of every counter and count, mean, p50, p99 and max in nanoseconds of every histogram
+	 */
+	public static Snapshot snapshot() {
+		SortedMap<String, Long> values = new TreeMap<>();
+		
+		for(Counter counter : COUNTERS) {
+			values.put(counter.getName(), counter.get());
+		}
+		
+		for(LatencyHistogram histogram : HISTOGRAMS) {
+			values.put(histogram.getName() + ".count", histogram.getCount());
+			values.put(histogram.getName() + ".mean", histogram.getMean());
+			values.put(histogram.getName() + ".p50", histogram.getQuantile(0.5));
+			values.put(histogram.getName() + ".p99", histogram.getQuantile(0.99));
+			values.put(histogram.getName() + ".max", histogram.getMax());
+		}
+		
+		return new Snapshot(System.currentTimeMillis(), values);
+	}
+	
+	/**
+	 * sets all counters and histograms back to zero
+	 */
+	public static void reset() {
+		COUNTERS.forEach(Counter::reset);
+		HISTOGRAMS.forEach(LatencyHistogram::reset);
+	}
+	
+	private static Counter counter(String name) {
+		Counter ret = new Counter(name);
+		
+		COUNTERS.add(ret);
+		
+		return ret;
+	}
+	
+	private static LatencyHistogram histogram(String name) {
+		LatencyHistogram ret = new LatencyHistogram(name);
+		
+		HISTOGRAMS.add(ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * values of all metrics at one point in time, rates follow from the difference of two snapshots
+	 */
+	public static class Snapshot {
+		private final long timestamp;
+		private final SortedMap<String, Long> values;
+		
+		Snapshot(long timestamp, SortedMap<String, Long> values) {
+			this.timestamp = timestamp;
+			this.values = Collections.unmodifiableSortedMap(values);
+		}
+		
+		/**
+		 * 
+		 * @return milliseconds since the epoch
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+		
+		public SortedMap<String, Long> getValues() {
+			return values;
+		}
+		
+		/**
+		 * 
+		 * @return one line "name value" per metric
+		 */
+		@Override
+		public String toString() {
+			StringBuilder ret = new StringBuilder();
+			
+			for(Map.Entry<String, Long> e : values.entrySet()) {
+				ret.append(e.getKey()).append(' ').append(e.getValue()).append(System.lineSeparator());
+			}
+			
+			return ret.toString();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("proofofwork.ModulusGeneration")
+@Label("Modulus Generation")
+@Category("Proof of Work")
+public class ModulusGenerationEvent extends Event {
+	@Label("Bit Length")
+	public int bitLength;
+	@Label("Pairs Evaluated")
+	public int pairs;
+	@Label("gcd((p - 3)/2, (q - 3)/2)")
+	public String gcd;
+}
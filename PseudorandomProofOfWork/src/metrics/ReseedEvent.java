@@ -0,0 +1,26 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("proofofwork.Reseed")
+@Label("Reseed")
+@Category("Proof of Work")
+public class ReseedEvent extends Event {
+	private final static EventType TYPE = EventType.getEventType(ReseedEvent.class);
+	@Label("Security Parameter")
+	public int securityParam;
+	@Label("Modulus Bit Length")
+	public int modulusBitLength;
+	
+	/**
+	 * 
+	 * @return true if a recording enables this event, checked before allocating one on the hot path
+	 */
+	public static boolean isRecorded() {
+		return TYPE.isEnabled();
+	}
+}
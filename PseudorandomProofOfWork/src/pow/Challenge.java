@@ -0,0 +1,135 @@
+package pow;
+
+import java.math.BigInteger;
+
+import math.Functions;
+
+/**
+ * A proof-of-work challenge over a Blum-number n. A nonce k >= 0 solves the challenge if the seed base + k mod n is in
+ * Z_n^* and its Blum-Blum-Shub sequence, that is the lowest bits of the first length states after the seed, meets the
+ * difficulty like in {@link analysis.Analysis}: zeroes/ones > difficulty or ones/zeroes > difficulty. The base is chosen by the issuer,
+ * so solutions can not be precomputed before the challenge is issued.
+ */
+public class Challenge {
+	private final BigInteger modulus, base;
+	private final int length,
+					  lowOnes; // the sequence meets the difficulty with at most lowOnes or at least length - lowOnes ones
+	private final double difficulty;
+	
+	/**
+	 * 
+	 * @param modulus Blum-number n
+	 * @param base 0 <= base < n
+	 * @param length number of bits of the sequence
+	 * @param difficulty > 1
+	 */
+	public Challenge(BigInteger modulus, BigInteger base, int length, double difficulty) {
+		if(base.signum() < 0 || base.compareTo(modulus) >= 0 || length < 1 || !(difficulty > 1)) {
+			throw new IllegalArgumentException("Invalid base " + base + ", length " + length + " or difficulty " + difficulty + ".");
+		}
+		
+		int low = (int)Math.ceil(length/(1 + difficulty)); // L - k > d*k <=> k < L/(1 + d)
+		
+		while(low >= 0 && !(length - low > difficulty*low)) { // corrects the rounding
+			low--;
+		}
+		
+		while(length - (low + 1) > difficulty*(low + 1)) {
+			low++;
+		}
+		
+		this.modulus = modulus;
+		this.base = base;
+		this.length = length;
+		this.difficulty = difficulty;
+		lowOnes = low;
+	}
+	
+	/**
+	 * 
+	 * @param nonce >= 0
+	 * @return the seed base + nonce mod n
+	 */
+	public BigInteger seed(long nonce) {
+		return base.add(BigInteger.valueOf(nonce)).mod(modulus);
+	}
+	
+	/**
+	 * 
+	 * @param seed
+	 * @return true if seed is an element of Z_n^*, the solver and the issuer reject every other seed, e.g. 0
+	 */
+	public boolean isUnit(BigInteger seed) {
+		return seed.gcd(modulus).compareTo(BigInteger.ONE) == 0;
+	}
+	
+	/**
+	 * 
+	 * @param ones number of ones of the complete sequence
+	 * @return true if the sequence meets the difficulty
+	 */
+	public boolean isMet(int ones) {
+		return ones <= lowOnes || ones >= length - lowOnes;
+	}
+	
+	/**
+	 * 
+	 * @param ones number of ones of the first bits of the sequence
+	 * @param bits 0 <= bits <= length
+	 * @return false if the sequence can not meet the difficulty anymore, whatever the remaining bits are
+	 */
+	public boolean isReachable(int ones, int bits) {
+		return ones <= lowOnes || ones + (length - bits) >= length - lowOnes;
+	}
+	
+	/**
+	 * 
+	 * @return probability that a random sequence meets the difficulty, the expected number of nonces to try is its inverse
+	 */
+	public double successProbability() {
+		double ret = 0, logAll = Functions.logGamma(length + 1) - length*Math.log(2);
+		
+		for(int k = 0; k <= lowOnes; k++) { // binomial tail, twice by symmetry
+			ret += 2*Math.exp(logAll - Functions.logGamma(k + 1) - Functions.logGamma(length - k + 1));
+		}
+		
+		return Math.min(1, ret);
+	}
+	
+	public BigInteger getModulus() {
+		return modulus;
+	}
+	
+	public BigInteger getBase() {
+		return base;
+	}
+	
+	public int getLength() {
+		return length;
+	}
+	
+	public double getDifficulty() {
+		return difficulty;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof Challenge)) {
+			return false;
+		}
+		
+		Challenge other = (Challenge)o;
+		
+		return modulus.equals(other.modulus) && base.equals(other.base) && length == other.length && difficulty == other.difficulty;
+	}
+	
+	@Override
+	public int hashCode() {
+		return (modulus.hashCode()*31 + base.hashCode())*31 + length;
+	}
+	
+	@Override
+	public String toString() {
+		return "challenge n = " + modulus + ", base " + base + ", " + length + " bits, difficulty " + difficulty;
+	}
+}
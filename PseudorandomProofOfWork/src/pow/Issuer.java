@@ -0,0 +1,143 @@
+package pow;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import analysis.Constants;
+import generators.MySecureRandom;
+import generators.PrimesGenerator;
+import math.MontgomeryLong;
+
+/**
+ * Issues {@link Challenge}s over a Blum-number n = pq and verifies their solutions on the same path as the {@link Solver}.
+ * Every output bit depends on the whole state, so the verifier has to follow every squaring of the sequence like the 
+ * solver, and following it as residues mod p and mod q with a recombination per bit was measured slower than squaring
+ * mod n directly. The issuer only saves the search, a sequence is abandoned as soon as it can not meet the difficulty.
+ * A challenge is consumed by its first accepted solution, so a solution can not be replayed, and only the last
+ * {@value Constants#POW_MAX_ISSUED_CHALLENGES} issued challenges are kept, older ones expire.
+ */
+public class Issuer {
+	private final BigInteger modulus;
+	private final Set<Challenge> issued = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Challenge, Boolean> eldest) {
+			return size() > Constants.POW_MAX_ISSUED_CHALLENGES;
+		}
+	})); // in the order of issue
+	private final MySecureRandom rand = MySecureRandom.current();
+	private MontgomeryLong montgomery; // null if n >= 2^64
+	
+	/**
+	 * issues challenges over a new Blum-number
+	 * @param securityParam
+	 */
+	public Issuer(int securityParam) {
+		this(new PrimesGenerator(securityParam, MySecureRandom.current(), 1).getRandomBlumNumber());
+	}
+	
+	/**
+	 * 
+	 * @param p prime with p = 3 mod 4
+	 * @param q prime with q = 3 mod 4, q != p
+	 */
+	public Issuer(BigInteger p, BigInteger q) {
+		this(new BigInteger[] {p.multiply(q), p, q});
+	}
+	
+	private Issuer(BigInteger[] blumNumber) {
+		modulus = blumNumber[0];
+		
+		if(MontgomeryLong.fits(modulus)) {
+			montgomery = new MontgomeryLong(modulus);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param difficulty > 1
+	 * @return a new challenge over {@value Constants#POW_SEQUENCE_LENGTH} bits
+	 */
+	public Challenge issue(double difficulty) {
+		return issue(Constants.POW_SEQUENCE_LENGTH, difficulty);
+	}
+	
+	/**
+	 * 
+	 * @param length number of bits of the sequence
+	 * @param difficulty > 1
+	 * @return a new challenge with a random base
+	 */
+	public Challenge issue(int length, double difficulty) {
+		Challenge ret = new Challenge(modulus, rand.nextRand(modulus.bitLength() + Long.SIZE).mod(modulus), length, difficulty);
+		
+		issued.add(ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * forgets a challenge, its solutions are not accepted anymore
+	 * @param challenge
+	 */
+	public void retire(Challenge challenge) {
+		issued.remove(challenge);
+	}
+	
+	/**
+	 * accepts a solution and retires its challenge, concurrent solutions of the same challenge are accepted only once
+	 * @param solution
+	 * @return true if the challenge of solution was issued by this issuer and is neither retired, consumed nor expired, 
+	 * 			and the nonce solves it
+	 */
+	public boolean verify(Solution solution) {
+		return isSolution(solution) && issued.remove(solution.getChallenge());
+	}
+	
+	/**
+	 * checks a solution like {@link #verify(Solution)} without consuming its challenge, e.g. to measure the verification
+	 * @param solution
+	 * @return true if the challenge of solution is live and the nonce solves it, with the rule of {@link Solver#isSolution(long)}
+	 */
+	public boolean isSolution(Solution solution) {
+		Challenge challenge = solution.getChallenge();
+		BigInteger seed = solution.getSeed();
+		
+		if(solution.getNonce() < 0 || !issued.contains(challenge) || !challenge.isUnit(seed)) {
+			return false;
+		}
+		
+		return montgomery != null ? Solver.meets(challenge, seed, montgomery) : Solver.meets(challenge, seed);
+	}
+	
+	/**
+	 * verifies many submissions in their order like {@link #verify(Solution)}, so only the first valid solution of a challenge
+	 * is accepted, a rejected submission is evaluated only once
+	 * @param solutions
+	 * @return true on index i if solutions[i] is accepted
+	 */
+	public boolean[] verify(List<Solution> solutions) {
+		boolean[] ret = new boolean[solutions.size()];
+		Set<Solution> rejected = new HashSet<>();
+		
+		for(int i = 0; i < ret.length; i++) {
+			Solution solution = solutions.get(i);
+			
+			ret[i] = !rejected.contains(solution) && verify(solution);
+			
+			if(!ret[i]) { // stays invalid, its challenge can only be consumed
+				rejected.add(solution);
+			}
+		}
+		
+		return ret;
+	}
+	
+	public BigInteger getModulus() {
+		return modulus;
+	}
+}
@@ -0,0 +1,120 @@
+package pow;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import analysis.Constants;
+
+/**
+ * Searches solutions of {@link Challenge}s on several threads. The workers take blocks of
+ * {@value Constants#POW_NONCE_BLOCK} consecutive nonces from a shared counter, so the nonce space is partitioned
+ * dynamically without any worker waiting for another, every candidate is abandoned as soon as it can not meet the
+ * difficulty and all workers stop as soon as one of them has found a solution. The nonces are tried independently,
+ * so the expected time to a solution shrinks linearly with the number of threads.
+ */
+public class ParallelSolver implements Closeable {
+	private final ExecutorService workers;
+	private final int threads;
+	private final LongAdder attempts = new LongAdder();
+	
+	/**
+	 * 
+	 * @param threads number of worker threads
+	 */
+	public ParallelSolver(int threads) {
+		if(threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads " + threads + ".");
+		}
+		
+		this.threads = threads;
+		workers = Executors.newFixedThreadPool(threads, ParallelSolver::daemon);
+	}
+	
+	/**
+	 * 
+	 * @param challenge
+	 * @return the first solution found by any worker, not necessarily the one with the smallest nonce
+	 */
+	public Solution solve(Challenge challenge) {
+		return solve(challenge, 0, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * 
+	 * @param challenge
+	 * @param from first nonce to try
+	 * @param to nonces below to are tried
+	 * @return the first solution in [from, to) found by any worker or null if there is none
+	 */
+	public Solution solve(Challenge challenge, long from, long to) {
+		AtomicLong next = new AtomicLong(from);
+		AtomicReference<Solution> found = new AtomicReference<>();
+		List<Future<?>> tasks = new ArrayList<>();
+		
+		for(int i = 0; i < threads; i++) {
+			tasks.add(workers.submit(() -> search(new Solver(challenge), next, to, found)));
+		}
+		
+		try {
+			for(Future<?> task : tasks) {
+				task.get();
+			}
+		} catch(InterruptedException e) {
+			tasks.forEach(task -> task.cancel(true)); // the workers check their interrupt flag between the blocks
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException e) {
+			throw new IllegalStateException("A solver worker failed.", e.getCause());
+		}
+		
+		return found.get();
+	}
+	
+	/**
+	 * 
+	 * @return number of nonces tried by all workers since the solver was created
+	 */
+	public long getAttempts() {
+		return attempts.sum();
+	}
+	
+	@Override
+	public void close() {
+		workers.shutdownNow();
+	}
+	
+	private void search(Solver solver, AtomicLong next, long to, AtomicReference<Solution> found) {
+		try {
+			while(found.get() == null && !Thread.currentThread().isInterrupted()) {
+				long block = next.getAndAdd(Constants.POW_NONCE_BLOCK);
+				
+				if(block >= to || block < 0) { // the range is exhausted or the counter overflowed
+					return;
+				}
+				
+				for(long nonce = block, end = Math.min(to, block + Constants.POW_NONCE_BLOCK); nonce < end && found.get() == null; nonce++) {
+					if(solver.isSolution(nonce)) {
+						found.compareAndSet(null, new Solution(solver.getChallenge(), nonce));
+					}
+				}
+			}
+		} finally {
+			attempts.add(solver.getAttempts());
+		}
+	}
+	
+	private static Thread daemon(Runnable runnable) {
+		Thread ret = new Thread(runnable, "pow-solver");
+		
+		ret.setDaemon(true);
+		
+		return ret;
+	}
+}
@@ -0,0 +1,47 @@
+package pow;
+
+import java.math.BigInteger;
+
+/**
+ * nonce submitted for a {@link Challenge}
+ */
+public class Solution {
+	private final Challenge challenge;
+	private final long nonce;
+	
+	public Solution(Challenge challenge, long nonce) {
+		this.challenge = challenge;
+		this.nonce = nonce;
+	}
+	
+	public Challenge getChallenge() {
+		return challenge;
+	}
+	
+	public long getNonce() {
+		return nonce;
+	}
+	
+	/**
+	 * 
+	 * @return the seed of the sequence, base + nonce mod n
+	 */
+	public BigInteger getSeed() {
+		return challenge.seed(nonce);
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Solution && challenge.equals(((Solution)o).challenge) && nonce == ((Solution)o).nonce;
+	}
+	
+	@Override
+	public int hashCode() {
+		return challenge.hashCode()*31 + Long.hashCode(nonce);
+	}
+	
+	@Override
+	public String toString() {
+		return "nonce " + nonce + " for " + challenge;
+	}
+}
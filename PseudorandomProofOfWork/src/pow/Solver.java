@@ -0,0 +1,121 @@
+package pow;
+
+import java.math.BigInteger;
+
+import math.MontgomeryLong;
+
+/**
+ * searches a nonce solving a {@link Challenge} without knowing the factorization of n, every candidate sequence is
+ * abandoned as soon as it can not meet the difficulty anymore
+ */
+public class Solver {
+	private final Challenge challenge;
+	private MontgomeryLong montgomery; // null if n >= 2^64
+	private long attempts;
+	
+	public Solver(Challenge challenge) {
+		this.challenge = challenge;
+		
+		if(MontgomeryLong.fits(challenge.getModulus())) {
+			montgomery = new MontgomeryLong(challenge.getModulus());
+		}
+	}
+	
+	/**
+	 * 
+	 * @return the solution with the smallest nonce
+	 */
+	public Solution solve() {
+		return solve(0, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * 
+	 * @param from first nonce to try
+	 * @param to nonces below to are tried
+	 * @return the solution with the smallest nonce in [from, to) or null if there is none
+	 */
+	public Solution solve(long from, long to) {
+		for(long nonce = from; nonce < to; nonce++) {
+			if(isSolution(nonce)) {
+				return new Solution(challenge, nonce);
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * 
+	 * @param nonce
+	 * @return true if nonce solves the challenge, a seed sharing a factor with n never does (see {@link Challenge#isUnit(BigInteger)})
+	 */
+	public boolean isSolution(long nonce) {
+		BigInteger seed = challenge.seed(nonce);
+		
+		attempts++;
+		
+		if(!challenge.isUnit(seed)) {
+			return false;
+		}
+		
+		return montgomery != null ? meets(challenge, seed, montgomery) : meets(challenge, seed);
+	}
+	
+	/**
+	 * 
+	 * @return number of nonces tried
+	 */
+	public long getAttempts() {
+		return attempts;
+	}
+	
+	public Challenge getChallenge() {
+		return challenge;
+	}
+	
+	/**
+	 * 
+	 * @param challenge
+	 * @param seed
+	 * @param montgomery over n < 2^64
+	 * @return true if the sequence of seed meets the difficulty of challenge
+	 */
+	static boolean meets(Challenge challenge, BigInteger seed, MontgomeryLong montgomery) {
+		long x = montgomery.toMontgomery(seed.longValue());
+		int ones = 0, length = challenge.getLength();
+		
+		for(int i = 0; i < length; i++) {
+			x = montgomery.square(x);
+			ones += (int)(montgomery.fromMontgomery(x) & 1);
+			
+			if(!challenge.isReachable(ones, i + 1)) {
+				return false;
+			}
+		}
+		
+		return challenge.isMet(ones);
+	}
+	
+	/**
+	 * 
+	 * @param challenge
+	 * @param seed
+	 * @return true if the sequence of seed meets the difficulty of challenge, squaring BigIntegers mod n
+	 */
+	static boolean meets(Challenge challenge, BigInteger seed) {
+		BigInteger x = seed, modulus = challenge.getModulus();
+		int ones = 0, length = challenge.getLength();
+		
+		for(int i = 0; i < length; i++) {
+			x = x.multiply(x).mod(modulus);
+			ones += x.testBit(0) ? 1 : 0;
+			
+			if(!challenge.isReachable(ones, i + 1)) {
+				return false;
+			}
+		}
+		
+		return challenge.isMet(ones);
+	}
+}
@@ -0,0 +1,38 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncResultWriterTest {
+	@TempDir
+	Path directory;
+	
+	@Test
+	void appendKeepsEarlierRounds() throws IOException {
+		Path file = directory.resolve("results.csv");
+		
+		try(AsyncResultWriter writer = new AsyncResultWriter(file, AsyncResultWriter.Format.CSV, true)) {
+			writer.accept(new RoundResult(0, BigInteger.TWO, 1.25, 10, 100));
+		}
+		
+		try(AsyncResultWriter writer = new AsyncResultWriter(file, AsyncResultWriter.Format.CSV, true)) {
+			writer.accept(new RoundResult(1, BigInteger.TEN, 0.5, 20, 200));
+		}
+		
+		assertEquals(List.of("round,seed,ratio,period,nanos", "0,2,1.25,10,100", "1,10,0.5,20,200"), Files.readAllLines(file));
+		
+		try(AsyncResultWriter writer = new AsyncResultWriter(file, AsyncResultWriter.Format.CSV)) {
+			writer.accept(new RoundResult(2, BigInteger.ONE, 2.0, 30, 300));
+		}
+		
+		assertEquals(List.of("round,seed,ratio,period,nanos", "2,1,2.0,30,300"), Files.readAllLines(file));
+	}
+}
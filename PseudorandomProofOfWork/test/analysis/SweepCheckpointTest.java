@@ -0,0 +1,58 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SweepCheckpointTest {
+	@TempDir
+	Path directory;
+	
+	@Test
+	void savedCheckpointLoadsAndIsOwnerOnly() throws IOException {
+		Path file = directory.resolve("sweep.checkpoint");
+		BigInteger[] seeds = {BigInteger.TWO, BigInteger.valueOf(0xabcdef), BigInteger.TEN};
+		
+		assertNull(SweepCheckpoint.load(file));
+		new SweepCheckpoint(32, 0.5, BigInteger.valueOf(1019), BigInteger.valueOf(2063), seeds, 2).save(file);
+		
+		SweepCheckpoint checkpoint = SweepCheckpoint.load(file);
+		
+		assertEquals(BigInteger.valueOf(1019), checkpoint.getP());
+		assertEquals(BigInteger.valueOf(2063), checkpoint.getQ());
+		assertArrayEquals(seeds, checkpoint.getSeeds());
+		assertEquals(2, checkpoint.getNextRound());
+		
+		if(file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+		}
+	}
+	
+	@Test
+	void emptyOrTruncatedFileIsRejected() throws IOException {
+		Path file = directory.resolve("sweep.checkpoint");
+		
+		Files.createFile(file);
+		assertThrows(IOException.class, () -> SweepCheckpoint.load(file));
+		
+		new SweepCheckpoint(32, 0.5, BigInteger.valueOf(1019), BigInteger.valueOf(2063), new BigInteger[] {BigInteger.TWO, BigInteger.TEN}, 0).save(file);
+		List<String> lines = Files.readAllLines(file);
+		
+		Files.write(file, lines.subList(0, 2));
+		assertThrows(IOException.class, () -> SweepCheckpoint.load(file));
+		
+		Files.write(file, List.of(lines.get(0).substring(0, 5)));
+		assertThrows(IOException.class, () -> SweepCheckpoint.load(file));
+	}
+}
@@ -0,0 +1,170 @@
+package generators;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * compares the Montgomery fast path below 2^64 and the in place {@link math.MutableMontgomery} path above with plain 
+ * BigInteger squaring x_(i+1) = x_i^2 mod n
+ */
+class BlumBlumShubTest {
+	private final static int[] MODULUS_BITS = {20, 31, 32, 33, 48, 62},
+							   WIDE_MODULUS_BITS = {65, 127, 128, 1024};
+	private final static int STEPS = 1000;
+	private final static BigInteger TWO = BigInteger.TWO;
+	private final Random random = new Random(42);
+	
+	@Test
+	void nextBooleanMatchesModPow() {
+		for(int bits : MODULUS_BITS) {
+			BlumBlumShub generator = generator(bits);
+			BigInteger n = generator.getModulus(), x = seed(n);
+			
+			generator.setSeed(x);
+			
+			for(int i = 0; i < STEPS; i++) {
+				x = x.modPow(TWO, n);
+				assertEquals(x.testBit(0), generator.nextBoolean(), "bit " + i + " for n = " + n);
+			}
+			
+			assertEquals(x, generator.getCurrent(), "state for n = " + n);
+		}
+	}
+	
+	@Test
+	void fillBitsMatchesModPow() {
+		for(int bits : MODULUS_BITS) {
+			BlumBlumShub generator = generator(bits);
+			BigInteger n = generator.getModulus(), x = seed(n);
+			long[] words = new long[(STEPS + Long.SIZE - 1) / Long.SIZE];
+			
+			generator.setSeed(x);
+			generator.fillBits(words, STEPS);
+			
+			for(int i = 0; i < STEPS; i++) {
+				x = x.modPow(TWO, n);
+				assertEquals(x.testBit(0), (words[i / Long.SIZE] << (i % Long.SIZE)) < 0, "bit " + i + " for n = " + n);
+			}
+			
+			assertEquals(x, generator.getCurrent(), "state for n = " + n);
+		}
+	}
+	
+	@Test
+	void widePathMatchesBigInteger() {
+		for(int bits : WIDE_MODULUS_BITS) {
+			BlumBlumShub generator = generator(bits), other = generator(bits);
+			BigInteger n = generator.getModulus(), x = seed(n), y;
+			long[] words = new long[(STEPS + Long.SIZE - 1) / Long.SIZE];
+			
+			generator.setSeed(x);
+			
+			for(int i = 0; i < STEPS; i++) {
+				x = x.multiply(x).mod(n);
+				assertEquals(x.testBit(0), generator.nextBoolean(), "bit " + i + " for n = " + n);
+			}
+			
+			assertEquals(x, generator.getCurrent(), "state for n = " + n);
+			
+			n = other.getModulus();
+			y = seed(n);
+			other.setSeed(y);
+			other.fillBits(words, STEPS);
+			
+			for(int i = 0; i < STEPS; i++) {
+				y = y.multiply(y).mod(n);
+				assertEquals(y.testBit(0), (words[i / Long.SIZE] << (i % Long.SIZE)) < 0, "bit " + i + " for n = " + n);
+			}
+			
+			assertEquals(y, other.getCurrent(), "state for n = " + n);
+		}
+	}
+	
+	@Test
+	void chineseRemainderMatchesDefaultPath() {
+		for(int bits : new int[] {32, 62, 65, 128, 1024}) {
+			BlumBlumShub generator = generator(bits);
+			BigInteger seed = seed(generator.getModulus());
+			long[] expected = new long[(STEPS + Long.SIZE - 1) / Long.SIZE], words = new long[expected.length], tail = new long[expected.length];
+			int half = expected.length / 2 * Long.SIZE;
+			
+			generator.setSeed(seed);
+			generator.fillBits(expected, STEPS);
+			
+			BigInteger state = generator.getCurrent();
+			
+			generator.setChineseRemainder(true);
+			generator.setSeed(seed);
+			generator.fillBits(words, STEPS);
+			assertArrayEquals(expected, words, "chinese remainder mode for n = " + generator.getModulus());
+			assertEquals(state, generator.getCurrent(), "chinese remainder state for n = " + generator.getModulus());
+			
+			generator.setSeed(seed); // switched back to the default path in the middle of the sequence
+			generator.fillBits(words, half);
+			generator.setChineseRemainder(false);
+			generator.fillBits(tail, STEPS - half);
+			System.arraycopy(tail, 0, words, half / Long.SIZE, words.length - half / Long.SIZE);
+			assertArrayEquals(expected, words, "switched mode for n = " + generator.getModulus());
+			assertEquals(state, generator.getCurrent(), "switched state for n = " + generator.getModulus());
+		}
+	}
+	
+	@Test
+	void bitAtIndexesTheSequentialOutput() {
+		for(int bits : MODULUS_BITS) {
+			BlumBlumShub generator = generator(bits);
+			BigInteger n = generator.getModulus();
+			
+			generator.setSeed(seed(n));
+			
+			for(int i = 0; i < STEPS; i++) {
+				assertEquals(generator.bitAt(BigInteger.valueOf(i)), generator.nextBoolean(), "bit " + i + " for n = " + n);
+			}
+		}
+	}
+	
+	/**
+	 * 
+	 * @param bits
+	 * @return a generator over a Blum-number with exactly bits bits
+	 */
+	private BlumBlumShub generator(int bits) {
+		while(true) {
+			BigInteger p = blumPrime(bits / 2), q = blumPrime(bits - bits / 2);
+			
+			if(!p.equals(q) && p.multiply(q).bitLength() == bits) {
+				return new BlumBlumShub(bits, p, q);
+			}
+		}
+	}
+	
+	private BigInteger blumPrime(int bits) {
+		while(true) {
+			BigInteger ret = BigInteger.probablePrime(bits, random);
+			
+			if(ret.testBit(1)) { // = 3 mod 4
+				return ret;
+			}
+		}
+	}
+	
+	/**
+	 * 
+	 * @param n
+	 * @return a quadratic residue in Z_n^*
+	 */
+	private BigInteger seed(BigInteger n) {
+		while(true) {
+			BigInteger ret = new BigInteger(n.bitLength(), random).mod(n);
+			
+			if(ret.signum() > 0 && ret.gcd(n).equals(BigInteger.ONE)) {
+				return ret.modPow(TWO, n);
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModulusPoolTest {
+	private final static int SECURITY_PARAM = 32;
+	@TempDir
+	Path directory;
+	
+	@Test
+	void takenModulusIsRemovedFromFile() throws IOException, InterruptedException {
+		Path file = directory.resolve("moduli");
+		BigInteger[] taken;
+		
+		try(ModulusPool pool = new ModulusPool(file, 0, 2, 1)) {
+			pool.prefill(SECURITY_PARAM);
+			
+			while(pool.depth(SECURITY_PARAM) < 2) {
+				Thread.sleep(10);
+			}
+			
+			taken = pool.take(SECURITY_PARAM);
+			pool.flush();
+			
+			// no close(), the file has to reflect the flushed take like after a crash
+			try(ModulusPool restarted = new ModulusPool(file, 0, 2, 1)) {
+				assertEquals(1, restarted.depth(SECURITY_PARAM));
+				assertNotEquals(taken[0], restarted.take(SECURITY_PARAM)[0]);
+			}
+		}
+		
+		if(file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+		}
+	}
+	
+	@Test
+	void corruptLinesAreSkipped() throws IOException {
+		Path file = directory.resolve("moduli");
+		
+		Files.write(file, List.of(SECURITY_PARAM + " 4d 7 b", "", SECURITY_PARAM + " zz 7 b", "truncated", SECURITY_PARAM + " 8f b 13"));
+		
+		try(ModulusPool pool = new ModulusPool(file, 0, 1, 1)) {
+			assertEquals(2, pool.depth(SECURITY_PARAM));
+			assertEquals(BigInteger.valueOf(77), pool.take(SECURITY_PARAM)[0]);
+		}
+	}
+	
+	@Test
+	void closeDuringGenerationIsNoError() throws IOException, InterruptedException {
+		AtomicReference<Throwable> uncaught = new AtomicReference<>();
+		Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+		
+		Thread.setDefaultUncaughtExceptionHandler((thread, e) -> uncaught.set(e));
+		
+		try {
+			try(ModulusPool pool = new ModulusPool(directory.resolve("moduli"), 0, 4, 2)) {
+				pool.prefill(1024);
+				Thread.sleep(50);
+			}
+			
+			Thread.sleep(500);
+			assertNull(uncaught.get());
+		} finally {
+			Thread.setDefaultUncaughtExceptionHandler(handler);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PrimesGeneratorTest {
+	private final static BigInteger THREE = BigInteger.valueOf(3), FOUR = BigInteger.valueOf(4);
+	
+	@Test
+	void blumNumbersHavePAboveTwiceQ() {
+		PrimesGenerator generator = new PrimesGenerator(48, new Random(1), 4);
+		
+		for(int i = 0; i < 50; i++) {
+			BigInteger[] blum = generator.getRandomBlumNumber();
+			
+			assertEquals(blum[0], blum[1].multiply(blum[2]));
+			assertEquals(THREE, blum[1].mod(FOUR));
+			assertEquals(THREE, blum[2].mod(FOUR));
+			assertTrue(blum[1].compareTo(blum[2].shiftLeft(1)) > 0, "p = " + blum[1] + " is not above 2q = " + blum[2].shiftLeft(1));
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * factors with primes above {@link Factorization#SMALL_PRIMES_LIMIT}, so the cofactors go through Pollard-Brent
+ */
+class FactorizationTest {
+	private final Random random = new Random(1);
+	
+	@Test
+	void factorsSemiprimes() {
+		for(int bits : new int[] {17, 20, 24, 32}) {
+			for(int i = 0; i < 50; i++) { // close factors often split in the same batch, so the backtracking runs as well
+				BigInteger p = BigInteger.probablePrime(bits, random), q = BigInteger.probablePrime(bits, random);
+				
+				assertFactorization(p.multiply(q));
+			}
+		}
+	}
+	
+	@Test
+	void factorsSemiprimeOfFortyBitPrimes() {
+		BigInteger p = BigInteger.probablePrime(40, random), q = BigInteger.probablePrime(40, random), n = p.multiply(q);
+		SortedMap<BigInteger, Integer> factorization = Factorization.factor(n, 1L << 24);
+		
+		assertEquals(p.equals(q) ? Map.of(p, 2) : Map.of(p, 1, q, 1), factorization);
+	}
+	
+	@Test
+	void factorsPrimePowers() {
+		BigInteger p = BigInteger.valueOf(65537), q = BigInteger.probablePrime(24, random);
+		
+		assertEquals(Map.of(p, 2), Factorization.factor(p.pow(2)));
+		assertEquals(Map.of(q, 3), Factorization.factor(q.pow(3)));
+		assertFactorization(p.pow(2).multiply(q).shiftLeft(5).multiply(BigInteger.valueOf(3)));
+	}
+	
+	@Test
+	void givesUpWithinBudget() {
+		BigInteger n = BigInteger.probablePrime(60, random).multiply(BigInteger.probablePrime(60, random));
+		
+		assertThrows(ArithmeticException.class, () -> Factorization.factor(n, 1 << 10));
+	}
+	
+	private static void assertFactorization(BigInteger n) {
+		SortedMap<BigInteger, Integer> factorization = Factorization.factor(n);
+		
+		assertEquals(n, Factorization.value(factorization), "n = " + n);
+		
+		for(BigInteger prime : factorization.keySet()) {
+			assertTrue(prime.isProbablePrime(64), prime + " of " + n + " is not prime");
+		}
+	}
+}
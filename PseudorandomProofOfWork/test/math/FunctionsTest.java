@@ -0,0 +1,36 @@
+package math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * cross-checks the factorization based functions against the brute-force ones that enumerate Z_n^*
+ */
+class FunctionsTest {
+	private final static int[] BLUM_PRIMES = {3, 7, 11, 19, 23, 31, 43, 47}; // = 3 mod 4
+	
+	@Test
+	void carmichaelMatchesBruteForce() {
+		for(int n = 1; n < 400; n++) {
+			BigInteger m = BigInteger.valueOf(n);
+			
+			assertEquals(Functions.carmichaelBruteForce(m), Functions.carmichael(m), "carmichael(" + n + ")");
+		}
+	}
+	
+	@Test
+	void maxPeriodLengthMatchesBruteForce() {
+		for(int i = 0; i < BLUM_PRIMES.length; i++) {
+			for(int j = i + 1; j < BLUM_PRIMES.length; j++) {
+				BigInteger p = BigInteger.valueOf(BLUM_PRIMES[i]),
+						   q = BigInteger.valueOf(BLUM_PRIMES[j]),
+						   expected = Functions.carmichaelBruteForce(Functions.carmichaelBruteForce(p.multiply(q)));
+				
+				assertEquals(expected, Functions.maxPeriodLengthBlumBlumShub(p, q), "n = " + p + " * " + q);
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package math;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * compares the deterministic test below 2^64 and the probabilistic one above with {@link BigInteger#isProbablePrime(int)}
+ */
+class MillerRabinTest {
+	private final static int ROUNDS = 20;
+	private final Random random = new Random(1);
+	
+	@Test
+	void rejectsStrongPseudoprimes() {
+		// strong pseudoprimes to base 2, to the bases 2, 3, 5, 7 and to all prime bases up to 23
+		for(long n : new long[] {2047, 3215031751L, 3825123056546413051L}) {
+			assertFalse(MillerRabin.isPrime(n), n + " passed");
+			assertFalse(MillerRabin.isProbablePrime(BigInteger.valueOf(n), ROUNDS, random), n + " passed");
+		}
+		
+		// strong pseudoprimes above 2^64 to all prime bases up to 37 and 41, so only the random bases reject them
+		assertFalse(MillerRabin.isProbablePrime(new BigInteger("318665857834031151167461"), ROUNDS, random));
+		assertFalse(MillerRabin.isProbablePrime(new BigInteger("3317044064679887385961981"), ROUNDS, random));
+	}
+	
+	@Test
+	void rejectsCarmichaelNumbers() {
+		for(long n : new long[] {561, 1105, 1729, 2465, 2821, 6601, 8911, 41041, 825265, 321197185, 5394826801L, 232250619601L, 9746347772161L}) {
+			assertFalse(MillerRabin.isPrime(n), n + " passed");
+		}
+		
+		// Chernick numbers (6k + 1)(12k + 1)(18k + 1) with three prime factors above the trial division, below and above 2^64
+		for(long start : new long[] {10, 1 << 20}) {
+			for(long k = start, found = 0; found < 5; k++) {
+				BigInteger[] factors = {BigInteger.valueOf(6 * k + 1), BigInteger.valueOf(12 * k + 1), BigInteger.valueOf(18 * k + 1)};
+				
+				if(factors[0].isProbablePrime(64) && factors[1].isProbablePrime(64) && factors[2].isProbablePrime(64)) {
+					BigInteger n = factors[0].multiply(factors[1]).multiply(factors[2]);
+					
+					assertFalse(MillerRabin.isProbablePrime(n, ROUNDS, random), n + " passed");
+					
+					if(n.bitLength() <= Long.SIZE) {
+						assertFalse(MillerRabin.isPrime(n.longValue()), n + " passed");
+					}
+					
+					found++;
+				}
+			}
+		}
+	}
+	
+	@Test
+	void agreesNextToTwoToSixtyThreeAndSixtyFour() {
+		assertTrue(MillerRabin.isPrime(Long.MAX_VALUE - 24)); // 2^63 - 25, the largest prime below 2^63
+		assertTrue(MillerRabin.isPrime(-59)); // 2^64 - 59, the largest prime below 2^64
+		assertTrue(MillerRabin.isProbablePrime(BigInteger.ONE.shiftLeft(64).add(BigInteger.valueOf(13)), ROUNDS, random));
+		
+		for(BigInteger power : new BigInteger[] {BigInteger.ONE.shiftLeft(63), BigInteger.ONE.shiftLeft(64)}) {
+			for(BigInteger n = power.subtract(BigInteger.valueOf(200)); n.compareTo(power.add(BigInteger.valueOf(200))) < 0; n = n.add(BigInteger.ONE)) {
+				boolean expected = n.isProbablePrime(64);
+				
+				assertEquals(expected, MillerRabin.isProbablePrime(n, ROUNDS, random), n.toString());
+				
+				if(n.bitLength() <= Long.SIZE) {
+					assertEquals(expected, MillerRabin.isPrime(n.longValue()), n.toString());
+				}
+			}
+		}
+	}
+	
+	@Test
+	void agreesWithBigIntegerAboveTwoToSixtyFour() {
+		for(int bits = 65; bits <= 512; bits += 17) {
+			for(int i = 0; i < 200; i++) {
+				BigInteger n = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+				
+				assertEquals(n.isProbablePrime(64), MillerRabin.isProbablePrime(n, ROUNDS, random), n.toString());
+			}
+			
+			BigInteger prime = MillerRabin.nextProbablePrime(new BigInteger(bits, random).setBit(bits - 1).setBit(0), BigInteger.TWO, ROUNDS, random);
+			
+			assertTrue(prime.isProbablePrime(64), prime.toString());
+		}
+	}
+	
+	@Test
+	void batchAgreesWithSingleTests() {
+		BigInteger first = new BigInteger(96, random).setBit(95).setBit(0), step = BigInteger.valueOf(4);
+		boolean[] expected = new boolean[1000];
+		
+		for(int k = 0; k < expected.length; k++) {
+			expected[k] = first.add(step.multiply(BigInteger.valueOf(k))).isProbablePrime(64);
+		}
+		
+		assertArrayEquals(expected, MillerRabin.isProbablePrime(first, step, expected.length, ROUNDS, random));
+	}
+}
@@ -0,0 +1,86 @@
+package math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * compares the multi limb arithmetic with BigInteger on random odd moduli, including the Montgomery forms near 0 and n - 1
+ */
+class MutableMontgomeryTest {
+	private final static int SQUARINGS = 64;
+	private final Random random = new Random(22);
+	
+	@ParameterizedTest
+	@ValueSource(ints = {65, 127, 128, 1024, 2048})
+	void conversionsRoundTrip(int bits) {
+		BigInteger n = modulus(bits);
+		MutableMontgomery montgomery = new MutableMontgomery(n);
+		long[] a = montgomery.newElement();
+		
+		for(BigInteger value : values(n)) {
+			montgomery.toMontgomery(value, a);
+			assertEquals(value, montgomery.fromMontgomery(a), "value " + value + " mod " + n);
+			assertEquals(value.longValue(), montgomery.lowBits(a), "low bits of " + value + " mod " + n);
+		}
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {65, 127, 128, 1024, 2048})
+	void squareMatchesModPow(int bits) {
+		BigInteger n = modulus(bits);
+		MutableMontgomery montgomery = new MutableMontgomery(n);
+		long[] a = montgomery.newElement();
+		
+		for(BigInteger value : values(n)) {
+			BigInteger x = value;
+			
+			montgomery.toMontgomery(value, a);
+			
+			for(int i = 0; i < SQUARINGS; i++) {
+				x = x.modPow(BigInteger.TWO, n);
+				montgomery.square(a);
+				assertEquals(x.longValue(), montgomery.lowBits(a), "low bits of square " + i + " of " + value + " mod " + n);
+			}
+			
+			assertEquals(x, montgomery.fromMontgomery(a), "square " + SQUARINGS + " of " + value + " mod " + n);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param bits
+	 * @return an odd modulus with exactly bits bits
+	 */
+	private BigInteger modulus(int bits) {
+		return new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+	}
+	
+	/**
+	 * 
+	 * @param n
+	 * @return random values mod n, the edge values 0, 1, n - 1 and n - 2, and the values whose Montgomery forms 
+	 * 			are 0, 1, n - 1 and n - 2
+	 */
+	private List<BigInteger> values(BigInteger n) {
+		List<BigInteger> ret = new ArrayList<>();
+		BigInteger rInverse = BigInteger.ONE.shiftLeft(Long.SIZE*((n.bitLength() + Long.SIZE - 1)/Long.SIZE)).modInverse(n);
+		
+		for(BigInteger edge : new BigInteger[] {BigInteger.ZERO, BigInteger.ONE, n.subtract(BigInteger.ONE), n.subtract(BigInteger.TWO)}) {
+			ret.add(edge);
+			ret.add(edge.multiply(rInverse).mod(n));
+		}
+		
+		for(int i = 0; i < 16; i++) {
+			ret.add(new BigInteger(n.bitLength() + Long.SIZE, random).mod(n));
+		}
+		
+		return ret;
+	}
+}
@@ -0,0 +1,70 @@
+package math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import analysis.Period;
+import analysis.PeriodFinder;
+
+class PeriodCalculatorTest {
+	private final Random random = new Random(19);
+	
+	@Test
+	void cycleLengthMatchesPeriodFinder() {
+		BigInteger p = BigInteger.valueOf(1019), q = BigInteger.valueOf(2063), n = p.multiply(q); // both = 3 mod 4
+		PeriodCalculator calculator = PeriodCalculator.of(p, q);
+		
+		for(int i = 0; i < 200; i++) {
+			BigInteger seed = seed(n);
+			Period period = PeriodFinder.find(seed, n, Long.MAX_VALUE);
+			
+			assertEquals(BigInteger.valueOf(period.getCycleLength()), calculator.cycleLength(seed), "seed " + seed);
+			assertEquals(period.getTailLength(), calculator.tailLength(seed), "seed " + seed);
+		}
+	}
+	
+	/**
+	 * p = 2r + 1 with r - 1 = 2kab for two 56 bit primes a and b, so the cycle length needs a factorization 
+	 * Pollard-Brent can not finish within its budget
+	 */
+	@Test
+	void infeasibleFactorizationFailsInsteadOfHanging() {
+		BigInteger a = BigInteger.probablePrime(56, random), b = BigInteger.probablePrime(56, random), r, p;
+		
+		for(BigInteger k = BigInteger.ONE; ; k = k.add(BigInteger.ONE)) {
+			r = a.multiply(b).multiply(k).shiftLeft(1).add(BigInteger.ONE);
+			p = r.shiftLeft(1).add(BigInteger.ONE);
+			
+			if(r.isProbablePrime(64) && p.isProbablePrime(64)) {
+				break;
+			}
+		}
+		
+		BigInteger q = BigInteger.valueOf(23), n = p.multiply(q), seed = seed(n);
+		PeriodCalculator calculator = PeriodCalculator.of(p, q);
+		
+		assertTimeoutPreemptively(Duration.ofMinutes(1), () -> assertThrows(ArithmeticException.class, () -> calculator.cycleLength(seed)));
+	}
+	
+	/**
+	 * 
+	 * @param n
+	 * @return a random element of Z_n^*
+	 */
+	private BigInteger seed(BigInteger n) {
+		while(true) {
+			BigInteger ret = new BigInteger(n.bitLength(), random).mod(n);
+			
+			if(ret.signum() > 0 && ret.gcd(n).equals(BigInteger.ONE)) {
+				return ret;
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package pow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IssuerTest {
+	private final static int SECURITY_PARAM = 48, LENGTH = 64;
+	private final static double DIFFICULTY = 1.2;
+	private final Issuer issuer = new Issuer(SECURITY_PARAM);
+	
+	@Test
+	void solutionIsAcceptedOnlyOnce() {
+		Solution solution = solve();
+		
+		assertTrue(issuer.isSolution(solution));
+		assertTrue(issuer.verify(solution));
+		assertFalse(issuer.verify(solution));
+		assertFalse(issuer.verify(new Solver(solution.getChallenge()).solve(solution.getNonce() + 1, Long.MAX_VALUE)));
+	}
+	
+	@Test
+	void batchRejectsReplays() {
+		Solution first = solve(), second = solve();
+		
+		assertArrayEquals(new boolean[] {true, false, true, false}, issuer.verify(List.of(first, first, second, first)));
+	}
+	
+	@Test
+	void issuerAgreesWithSolverAboveTwoTo64() {
+		for(int securityParam : new int[] {80, 128}) {
+			Issuer wide = new Issuer(securityParam);
+			Challenge challenge = wide.issue(LENGTH, DIFFICULTY);
+			Solver solver = new Solver(challenge);
+			
+			assertTrue(wide.getModulus().bitLength() > Long.SIZE);
+			
+			for(long nonce = 0; nonce < 500; nonce++) {
+				assertEquals(solver.isSolution(nonce), wide.isSolution(new Solution(challenge, nonce)), "nonce " + nonce + " mod " + wide.getModulus());
+			}
+			
+			assertTrue(wide.verify(solver.solve(0, Long.MAX_VALUE)));
+		}
+	}
+	
+	@Test
+	void seedsSharingAFactorAreRejectedByBoth() {
+		Random random = new Random(20);
+		BigInteger p = blumPrime(random), q = blumPrime(random);
+		Issuer small = new Issuer(p, q);
+		Challenge challenge = small.issue(LENGTH, DIFFICULTY);
+		Solver solver = new Solver(challenge);
+		BigInteger n = small.getModulus();
+		
+		for(BigInteger seed : new BigInteger[] {BigInteger.ZERO, p, q, p.multiply(BigInteger.TWO)}) {
+			long nonce = seed.subtract(challenge.getBase()).mod(n).longValueExact();
+			
+			assertFalse(solver.isSolution(nonce), "seed " + seed);
+			assertFalse(small.isSolution(new Solution(challenge, nonce)), "seed " + seed);
+		}
+	}
+	
+	private static BigInteger blumPrime(Random random) {
+		while(true) {
+			BigInteger ret = BigInteger.probablePrime(31, random);
+			
+			if(ret.testBit(1)) { // = 3 mod 4
+				return ret;
+			}
+		}
+	}
+	
+	private Solution solve() {
+		return new Solver(issuer.issue(LENGTH, DIFFICULTY)).solve(0, Long.MAX_VALUE);
+	}
+}
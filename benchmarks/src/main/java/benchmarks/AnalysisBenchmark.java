@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import analysis.Analysis;
+import analysis.Constants;
+import analysis.RoundResult;
+import generators.BitSource;
+import generators.BlumBlumShub;
+import generators.LockstepBlumBlumShub;
+
+/**
+ * cost of one round of the equidistribution check, a fresh seed and the ratio of zeroes and ones over its period,
+ * on one generator per seed and on the lanes of a lockstep generator per batch of seeds
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+	private final static int BATCH = 64;
+	@Param({"16", "20", "24"})
+	private int securityParam;
+	private Analysis analysis;
+	private BlumBlumShub generator;
+	private BitSource source;
+	private LockstepBlumBlumShub lockstep;
+	private BigInteger[] seeds = new BigInteger[BATCH];
+	private RoundResult[] rounds = new RoundResult[BATCH];
+	
+	@Setup
+	public void setup() {
+		BigInteger[] primes = Moduli.strongBlumPrimes(securityParam);
+		
+		analysis = new Analysis(false, 1);
+		generator = new BlumBlumShub(securityParam, primes[0], primes[1]);
+		lockstep = new LockstepBlumBlumShub(generator.getModulus(), Constants.LOCKSTEP_LANES);
+		source = BitSource.of(generator);
+	}
+	
+	@Benchmark
+	public double equidistributionPerSeed() {
+		generator.generateSeed();
+		
+		return analysis.equidistribution(source, generator.getSeed(), Long.MAX_VALUE, 0).getRatio();
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public RoundResult[] equidistributionLockstep() {
+		for(int i = 0; i < BATCH; i++) {
+			generator.generateSeed();
+			seeds[i] = generator.getSeed();
+		}
+		
+		analysis.equidistribution(lockstep, seeds, rounds, 0, BATCH);
+		
+		return rounds;
+	}
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import generators.BitSource;
+import generators.BlumBlumShub;
+
+/**
+ * words per second of the generators the analysis can run on, Blum-Blum-Shub against the JDK generators as baselines
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitSourceBenchmark {
+	private final static int WORDS = 64;
+	@Param({"blumblumshub64", "blumblumshub1024", "securerandom", "splittablerandom", "L64X128MixRandom"})
+	private String source;
+	private BitSource bits;
+	private long[] words = new long[WORDS];
+	
+	@Setup
+	public void setup() {
+		if(source.startsWith("blumblumshub")) {
+			int modulusBits = Integer.parseInt(source.substring("blumblumshub".length()));
+			BigInteger[] primes = Moduli.blumPrimes(modulusBits);
+			
+			bits = BitSource.of(new BlumBlumShub(modulusBits, primes[0], primes[1]));
+		}
+		else if(source.equals("securerandom")) {
+			bits = BitSource.of(new SecureRandom());
+		}
+		else if(source.equals("splittablerandom")) {
+			bits = BitSource.of(new SplittableRandom(0x5eedL));
+		}
+		else {
+			bits = BitSource.of(RandomGenerator.of(source));
+		}
+	}
+	
+	@Benchmark
+	public long[] nextWords() {
+		bits.nextWords(words, WORDS);
+		
+		return words;
+	}
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import generators.BlumBlumShub;
+
+/**
+ * output throughput of one generator by modulus size, 64 bit moduli run on the Montgomery fast path and ignore chineseRemainder,
+ * larger moduli compare the in place squaring of {@link math.MutableMontgomery} with the chinese remainder mode
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlumBlumShubBenchmark {
+	@Param({"64", "128", "512", "1024", "2048"})
+	private int modulusBits;
+	@Param({"false", "true"})
+	private boolean chineseRemainder;
+	private BlumBlumShub generator;
+	
+	@Setup
+	public void setup() {
+		BigInteger[] primes = Moduli.blumPrimes(modulusBits);
+		
+		generator = new BlumBlumShub(modulusBits, primes[0], primes[1]);
+		generator.setChineseRemainder(chineseRemainder);
+	}
+	
+	@Benchmark
+	public boolean nextBoolean() {
+		return generator.nextBoolean();
+	}
+	
+	@Benchmark
+	public byte nextByte() {
+		return generator.nextByte();
+	}
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import math.Factorization;
+import math.Functions;
+
+/**
+ * scaling of the maximal period length carmichael(carmichael(n)) for Blum-numbers n = pq of strong primes, computed
+ * as {@link Functions#maxPeriodLengthBlumBlumShub(BigInteger, BigInteger)} does but without its memoization
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarmichaelBenchmark {
+	@Param({"32", "64", "128", "256", "512"})
+	private int modulusBits;
+	private BigInteger pMinusOne, qMinusOne;
+	
+	@Setup
+	public void setup() {
+		BigInteger[] primes = Moduli.strongBlumPrimes(modulusBits);
+		
+		pMinusOne = primes[0].subtract(BigInteger.ONE);
+		qMinusOne = primes[1].subtract(BigInteger.ONE);
+	}
+	
+	@Benchmark
+	public BigInteger carmichael() {
+		return Functions.carmichael(Factorization.lcm(Factorization.factor(pMinusOne), Factorization.factor(qMinusOne)));
+	}
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import generators.PrimesGenerator;
+
+/**
+ * primes for the benchmark states, drawn from a fixed seed so every run and every version measures the same moduli
+ */
+final class Moduli {
+	private final static long SEED = 0x5eedL;
+	private final static BigInteger THREE = BigInteger.valueOf(3), FOUR = BigInteger.valueOf(4);
+	
+	private Moduli() {
+	}
+	
+	/**
+	 * 
+	 * @param bitLength of n = pq
+	 * @return distinct primes p and q with p = q = 3 mod 4 on index 0 and 1, where n = pq has about bitLength bits
+	 */
+	static BigInteger[] blumPrimes(int bitLength) {
+		Random rand = new Random(SEED + bitLength);
+		BigInteger p = blumPrime(bitLength / 2, rand), q;
+		
+		do {
+			q = blumPrime(bitLength - bitLength / 2, rand);
+		} while(q.compareTo(p) == 0);
+		
+		return new BigInteger[] {p, q};
+	}
+	
+	/**
+	 * 
+	 * @param bitLength of n = pq
+	 * @return distinct strong primes p and q with p = q = 3 mod 4 on index 0 and 1, as {@link PrimesGenerator#getRandomBlumNumber()}
+	 * 			uses them, where n = pq has about bitLength bits
+	 */
+	static BigInteger[] strongBlumPrimes(int bitLength) {
+		Random rand = new Random(SEED + bitLength);
+		BigInteger p = new PrimesGenerator(bitLength / 2, rand, 1).randomStrongPrime(THREE, FOUR), q;
+		
+		do {
+			q = new PrimesGenerator(bitLength - bitLength / 2, rand, 1).randomStrongPrime(THREE, FOUR);
+		} while(q.compareTo(p) == 0);
+		
+		return new BigInteger[] {p, q};
+	}
+	
+	private static BigInteger blumPrime(int bitLength, Random rand) {
+		BigInteger ret;
+		
+		do {
+			ret = BigInteger.probablePrime(bitLength, rand);
+		} while(ret.mod(FOUR).compareTo(THREE) != 0);
+		
+		return ret;
+	}
+}
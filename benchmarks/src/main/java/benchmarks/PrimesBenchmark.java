@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import generators.MySecureRandom;
+import generators.PrimesGenerator;
+
+/**
+ * latency of the modulus generation, randomStrongPrime for one prime and getRandomBlumNumber for n = pq with bitLength bits
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimesBenchmark {
+	private final static BigInteger THREE = BigInteger.valueOf(3), FOUR = BigInteger.valueOf(4);
+	@Param({"256", "512"})
+	private int bitLength;
+	private PrimesGenerator primesGenerator;
+	
+	@Setup
+	public void setup() {
+		primesGenerator = new PrimesGenerator(bitLength, new MySecureRandom());
+	}
+	
+	@Benchmark
+	public BigInteger randomStrongPrime() {
+		return primesGenerator.randomStrongPrime(THREE, FOUR);
+	}
+	
+	@Benchmark
+	public BigInteger[] getRandomBlumNumber() {
+		return primesGenerator.getRandomBlumNumber();
+	}
+}
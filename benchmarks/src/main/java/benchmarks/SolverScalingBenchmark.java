@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pow.Issuer;
+import pow.ParallelSolver;
+import pow.Solution;
+
+/**
+ * average time to solve a new challenge by number of solver threads, near linear scaling shows up as the time
+ * halving with every doubling of the threads up to the number of cores
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverScalingBenchmark {
+	private final static double DIFFICULTY = 1.5;
+	@Param({"1", "2", "4", "8"})
+	private int threads;
+	@Param({"64", "128"})
+	private int modulusBits;
+	private Issuer issuer;
+	private ParallelSolver solver;
+	
+	@Setup
+	public void setup() {
+		BigInteger[] primes = Moduli.blumPrimes(modulusBits);
+		
+		issuer = new Issuer(primes[0], primes[1]);
+		solver = new ParallelSolver(threads);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		solver.close();
+	}
+	
+	@Benchmark
+	public Solution solve() {
+		return solver.solve(issuer.issue(DIFFICULTY));
+	}
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import math.MutableMontgomery;
+
+/**
+ * one Blum-Blum-Shub step with its output bits for large moduli, squaring the preallocated limbs in place against
+ * the immutable BigInteger.modPow which allocates every new state, the gc profiler shows the difference in allocation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SquaringBenchmark {
+	@Param({"512", "1024", "2048", "4096"})
+	private int modulusBits;
+	private BigInteger modulus, current;
+	private MutableMontgomery montgomery;
+	private long[] montgomeryCurrent;
+	
+	@Setup
+	public void setup() {
+		BigInteger[] primes = Moduli.blumPrimes(modulusBits);
+		
+		modulus = primes[0].multiply(primes[1]);
+		current = modulus.shiftRight(1).add(BigInteger.TWO).modPow(BigInteger.TWO, modulus);
+		montgomery = new MutableMontgomery(modulus);
+		montgomeryCurrent = montgomery.newElement();
+		montgomery.toMontgomery(current, montgomeryCurrent);
+	}
+	
+	@Benchmark
+	public long inPlace() {
+		montgomery.square(montgomeryCurrent);
+		
+		return montgomery.lowBits(montgomeryCurrent);
+	}
+	
+	@Benchmark
+	public long modPow() {
+		current = current.modPow(BigInteger.TWO, modulus);
+		
+		return current.longValue();
+	}
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pow.Challenge;
+import pow.Issuer;
+import pow.Solution;
+import pow.Solver;
+
+/**
+ * verified submissions per second on one core by the issuer and by the solver, both follow every squaring on the same path,
+ * the issuer additionally looks up the live challenge. Every submission of the batch is a valid solution so no sequence 
+ * is abandoned early.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificationBenchmark {
+	private final static int BATCH = 64;
+	private final static double DIFFICULTY = 1.5;
+	@Param({"64", "128", "256"})
+	private int modulusBits;
+	private Issuer issuer;
+	private Solver solver;
+	private List<Solution> solutions = new ArrayList<>();
+	
+	@Setup
+	public void setup() {
+		BigInteger[] primes = Moduli.blumPrimes(modulusBits);
+		
+		issuer = new Issuer(primes[0], primes[1]);
+		
+		Challenge challenge = issuer.issue(DIFFICULTY);
+		
+		solver = new Solver(challenge);
+		
+		for(long nonce = 0; solutions.size() < BATCH; nonce = solutions.get(solutions.size() - 1).getNonce() + 1) {
+			solutions.add(solver.solve(nonce, Long.MAX_VALUE));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int verifyByIssuer() { // verify(Solution) would consume the challenge on the first solution
+		int ret = 0;
+		
+		for(Solution solution : solutions) {
+			ret += issuer.isSolution(solution) ? 1 : 0;
+		}
+		
+		return ret;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int verifyBySolver() {
+		int ret = 0;
+		
+		for(Solution solution : solutions) {
+			ret += solver.isSolution(solution.getNonce()) ? 1 : 0;
+		}
+		
+		return ret;
+	}
+}